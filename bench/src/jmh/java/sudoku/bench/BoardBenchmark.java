@@ -0,0 +1,52 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sudoku.Board;
+import sudoku.BoardSamples;
+import sudoku.Solver;
+
+/** Board copies and Solver.isValidBoard on a partial and a full grid. */
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    private Board partial;
+    private Board full;
+
+    @Setup
+    public void setup() {
+        partial = BoardSamples.sampleEasy();
+        full = partial.copy();
+        new Solver().solve(full);
+    }
+
+    @Benchmark
+    public Board copy() {
+        return partial.copy();
+    }
+
+    /** A copy that is then written to, so the copy-on-write clone is included. */
+    @Benchmark
+    public Board copyAndSet() {
+        Board b = partial.copy();
+        b.set(0, 2, 4);
+        return b;
+    }
+
+    @Benchmark
+    public int[][] gridCopy() {
+        return partial.getGridCopy();
+    }
+
+    @Benchmark
+    public boolean isValidPartial() {
+        return Solver.isValidBoard(partial);
+    }
+
+    @Benchmark
+    public boolean isValidFull() {
+        return Solver.isValidBoard(full);
+    }
+}
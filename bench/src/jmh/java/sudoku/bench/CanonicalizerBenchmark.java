@@ -0,0 +1,59 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sudoku.Board;
+import sudoku.Canonicalizer;
+import sudoku.Generator;
+import sudoku.Solver;
+
+/** Canonicalizer on generated puzzles (25-55 clues) and on solved grids; scores are per board. */
+@State(Scope.Thread)
+public class CanonicalizerBenchmark {
+
+    private static final int BOARDS = 1024;
+
+    private Board[] puzzles;
+    private Board[] grids;
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private final Canonicalizer.Transform transform = new Canonicalizer.Transform();
+    private final int[] form = new int[81];
+
+    @Setup
+    public void setup() {
+        Generator gen = new Generator(1L);
+        Solver solver = new Solver();
+        puzzles = new Board[BOARDS];
+        grids = new Board[BOARDS];
+        for (int k = 0; k < BOARDS; k++) {
+            puzzles[k] = gen.generate(25 + k % 31);
+            grids[k] = puzzles[k].copy();
+            solver.solve(grids[k]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int puzzles() {
+        int n = 0;
+        for (Board b : puzzles) {
+            canonicalizer.canonicalize(b, form, transform);
+            n += form[80];
+        }
+        return n;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int grids() {
+        int n = 0;
+        for (Board b : grids) {
+            canonicalizer.canonicalize(b, form, transform);
+            n += form[80];
+        }
+        return n;
+    }
+}
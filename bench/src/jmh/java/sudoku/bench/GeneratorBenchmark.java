@@ -0,0 +1,31 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sudoku.Board;
+import sudoku.Generator;
+
+/** Generator.generate at each difficulty's blank target, with a fixed seed per trial. */
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+    @Param({"easy", "medium", "hard"})
+    public String difficulty;
+
+    private Generator generator;
+    private int blanks;
+
+    @Setup
+    public void setup() {
+        generator = new Generator(42L);
+        blanks = Generator.difficultyToBlanks(difficulty);
+    }
+
+    @Benchmark
+    public Board generate() {
+        return generator.generate(blanks);
+    }
+}
@@ -0,0 +1,51 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sudoku.Board;
+import sudoku.Engine;
+import sudoku.SolverEngine;
+
+/**
+ * solve and countSolutions over the bundled known-hard puzzles (src/samples/hardest.txt);
+ * each invocation takes the next puzzle, so scores are averages over the corpus.
+ */
+@State(Scope.Thread)
+public class HardCorpusBenchmark {
+
+    @Param({"BACKTRACKING", "DANCING_LINKS"})
+    public Engine engine;
+
+    private Board[] corpus;
+    private int next;
+    private SolverEngine solver;
+    private SolverEngine counter;
+
+    @Setup
+    public void setup() {
+        corpus = Puzzles.hardest();
+        solver = engine.create(0);
+        counter = engine.create(2);
+    }
+
+    private Board nextPuzzle() {
+        Board b = corpus[next];
+        next = next + 1 == corpus.length ? 0 : next + 1;
+        return b;
+    }
+
+    @Benchmark
+    public Board solve() {
+        Board b = nextPuzzle().copy();
+        solver.solve(b);
+        return b;
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return counter.countSolutions(nextPuzzle());
+    }
+}
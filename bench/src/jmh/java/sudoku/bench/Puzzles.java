@@ -0,0 +1,43 @@
+package sudoku.bench;
+
+import sudoku.Board;
+import sudoku.BoardSamples;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Benchmark inputs: the three samples and the bundled corpus of known-hard puzzles. */
+final class Puzzles {
+
+    private Puzzles() {}
+
+    static Board sample(String name) {
+        switch (name) {
+            case "easy": return BoardSamples.sampleEasy();
+            case "medium": return BoardSamples.sampleMedium();
+            case "hard": return BoardSamples.sampleHard();
+            default: throw new IllegalArgumentException("Unknown sample " + name);
+        }
+    }
+
+    /** The puzzles of hardest.txt (src/samples), in file order. */
+    static Board[] hardest() {
+        try (InputStream in = Puzzles.class.getResourceAsStream("/hardest.txt")) {
+            if (in == null) throw new IllegalStateException("hardest.txt is not on the classpath");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+            List<Board> boards = new ArrayList<>();
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (line.length() >= 81 && !line.startsWith("#")) boards.add(Board.fromString(line));
+            }
+            return boards.toArray(new Board[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sudoku.Board;
+import sudoku.Engine;
+import sudoku.SolverEngine;
+
+/** solve and countSolutions (limit 2, as the generator uses it) on the three samples, per engine. */
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+    @Param({"easy", "medium", "hard"})
+    public String sample;
+
+    @Param({"BACKTRACKING", "DANCING_LINKS"})
+    public Engine engine;
+
+    private Board puzzle;
+    private SolverEngine solver;
+    private SolverEngine counter;
+
+    @Setup
+    public void setup() {
+        puzzle = Puzzles.sample(sample);
+        solver = engine.create(0);
+        counter = engine.create(2);
+    }
+
+    @Benchmark
+    public Board solve() {
+        Board b = puzzle.copy();
+        solver.solve(b);
+        return b;
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return counter.countSolutions(puzzle);
+    }
+}
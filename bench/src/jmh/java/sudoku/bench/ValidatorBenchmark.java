@@ -0,0 +1,66 @@
+package sudoku.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sudoku.Board;
+import sudoku.Generator;
+import sudoku.GridValidator;
+import sudoku.Solver;
+
+/**
+ * GridValidator over 64k packed solved grids (scores are per grid), with and without the
+ * Vector API module, against Solver.isValidBoard on the same grids as Boards.
+ */
+@State(Scope.Thread)
+public class ValidatorBenchmark {
+
+    private static final int GRIDS = 1 << 16;
+    private static final int DISTINCT = 1024;
+
+    private byte[] grids;
+    private long[] valid;
+    private Board[] boards;
+
+    @Setup
+    public void setup() {
+        Generator gen = new Generator(1L);
+        Solver solver = new Solver();
+        boards = new Board[GRIDS];
+        grids = new byte[GRIDS * GridValidator.GRID_BYTES];
+        for (int k = 0; k < GRIDS; k++) {
+            if (k < DISTINCT) {
+                boards[k] = gen.generate(40);
+                solver.solve(boards[k]);
+            } else {
+                boards[k] = boards[k % DISTINCT];
+            }
+            GridValidator.pack(boards[k], grids, k * GridValidator.GRID_BYTES);
+        }
+        valid = new long[GRIDS / 64];
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    @OperationsPerInvocation(GRIDS)
+    public int bulkVector() {
+        return GridValidator.validate(grids, GRIDS, valid, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GRIDS)
+    public int bulkScalar() {
+        return GridValidator.validate(grids, GRIDS, valid, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GRIDS)
+    public int isValidBoard() {
+        int n = 0;
+        for (Board b : boards) if (Solver.isValidBoard(b)) n++;
+        return n;
+    }
+}
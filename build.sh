@@ -6,7 +6,7 @@ set -e
 # Create bin directory if not exists
 mkdir -p bin
 
-# Compile all Java files inside src folder into bin
-javac -d bin $(find src -name "*.java")
+# Compile the application sources into bin (tests need JUnit: use gradle test)
+javac -d bin $(find src/sudoku -name "*.java")
 
 echo "✅ Build successful!"
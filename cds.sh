@@ -0,0 +1,15 @@
+#!/bin/bash
+
+# Stop on first error
+set -e
+
+# Build, then package bin as a jar: AppCDS only archives classes loaded from jars
+bash build.sh
+jar cf sudoku.jar -C bin .
+
+# Training run: every class loaded until exit goes into the archive (parsed and verified)
+java -XX:ArchiveClassesAtExit=sudoku-cli.jsa -cp sudoku.jar sudoku.Cli \
+    000000012000007000001000000000050407000000000802040000000000100000800000430000000 > /dev/null
+
+echo "✅ sudoku-cli.jsa written. Solve with:"
+echo "java -XX:SharedArchiveFile=sudoku-cli.jsa -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -XX:-UsePerfData -cp sudoku.jar sudoku.Cli <puzzle>"
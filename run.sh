@@ -7,4 +7,4 @@ set -e
 ./build.sh
 
 # Run the main class from bin
-java -cp bin Main
+java -cp bin sudoku.Main
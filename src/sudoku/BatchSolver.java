@@ -0,0 +1,282 @@
+package sudoku;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Headless batch solving of puzzle files in the one-puzzle-per-line 81-character format
+ * (see {@link Board#fromString}). Lines shorter than 81 characters or starting with '#' are skipped.
+ *
+ * A reader thread streams the file into fixed-size chunks ({@link PuzzleChunk}), a fixed pool
+ * of workers solves them (each with its own reused engine and board) and the calling thread
+ * writes the results. Chunks are recycled through a bounded free list, so memory use does not
+ * depend on the file size and a slow writer or slow workers hold back the reader.
+ *
+ * Each output line is the 81-character solution, or 81 '.' for an unsolvable puzzle
+ * (81 '?' for one that hit --timeout MS, the per-puzzle search time limit).
+ * In ordered mode lines follow the input order; unordered mode writes chunks as soon as they
+ * are done and prefixes each line with the puzzle's 0-based index.
+ *
+ * An input name ending in .pzl is read as a binary {@link PuzzleFile} instead.
+ *
+ * With --metrics every worker records into one {@link SolverMetrics} (also published over JMX),
+ * whose summary is printed at the end; --slow MS additionally logs each puzzle slower than MS.
+ *
+ * Usage: java -cp bin sudoku.BatchSolver in.txt out.txt [--threads N] [--unordered] [--engine DANCING_LINKS]
+ *        [--metrics] [--slow MS] [--cache N] [--timeout MS]
+ * --cache N puts a {@link SolveCache} of N entries, shared by the workers, in front of the engine.
+ */
+public class BatchSolver {
+
+    static final int CHUNK = PuzzleChunk.SIZE; // puzzles per unit of work
+    private static final int OUT_LINE = 20 + 1 + 81 + 1; // index, space, solution, newline
+
+    private final int threads;
+    private final boolean ordered;
+    private final Engine engine;
+    private SolverMetrics metrics;
+    private SolveCache cache;
+    private long timeoutMillis; // per puzzle, 0: none
+
+    public BatchSolver(int threads, boolean ordered, Engine engine) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        this.threads = threads;
+        this.ordered = ordered;
+        this.engine = engine;
+    }
+
+    /** Record every puzzle of the following runs into metrics (null: no recording). */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Answer repeated (or equivalent) puzzles of the following runs from cache (null: no cache). */
+    public void setCache(SolveCache cache) {
+        this.cache = cache;
+    }
+
+    /** Give up on each puzzle of the following runs after millis (0: no limit). */
+    public void setTimeout(long millis) {
+        this.timeoutMillis = millis;
+    }
+
+    /** Totals of one run. */
+    public static final class Stats {
+        public final long puzzles;
+        public final long unsolved;
+        /** Puzzles given up on at the timeout (not counted as unsolved). */
+        public final long timedOut;
+        public final long nanos;
+
+        Stats(long puzzles, long unsolved, long timedOut, long nanos) {
+            this.puzzles = puzzles;
+            this.unsolved = unsolved;
+            this.timedOut = timedOut;
+            this.nanos = nanos;
+        }
+
+        public double puzzlesPerSecond() {
+            return nanos == 0 ? 0 : puzzles * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d puzzles, %d unsolved, %d timed out, %.2f s, %.0f puzzles/s",
+                    puzzles, unsolved, timedOut, nanos / 1e9, puzzlesPerSecond());
+        }
+    }
+
+    private static final class Chunk extends PuzzleChunk {
+        final byte[] out = new byte[CHUNK * OUT_LINE];
+        int outLen;
+        int unsolved;
+        int timedOut;
+    }
+
+    private static final Chunk END = new Chunk();
+
+    /**
+     * Solve every puzzle of in into out. An I/O error or a worker's exception stops the run and
+     * is rethrown here; no thread is left behind blocked on the queues.
+     */
+    public Stats run(Path in, Path out) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int inFlight = threads * 4;
+        BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(inFlight);
+        for (int i = 0; i < inFlight; i++) free.add(new Chunk());
+        BlockingQueue<Chunk> work = new ArrayBlockingQueue<>(inFlight + threads);
+        BlockingQueue<Chunk> done = new LinkedBlockingQueue<>();
+        IOException[] readError = new IOException[1];
+        Throwable[] failure = new Throwable[1];
+
+        long puzzles = 0, unsolved = 0, timedOut = 0;
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 20)) {
+            Thread reader = new Thread(() -> {
+                try {
+                    PuzzleChunk.read(in, free, work);
+                } catch (IOException e) {
+                    readError[0] = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    for (int i = 0; i < threads; i++) work.add(END);
+                }
+            }, "batch-reader");
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Thread(() -> solveChunks(work, done, failure), "batch-solver-" + t);
+                workers[t].setDaemon(true);
+            }
+            reader.setDaemon(true);
+            reader.start();
+            for (Thread w : workers) w.start();
+            try {
+                Map<Long, Chunk> pending = new HashMap<>();
+                long next = 0;
+                int finished = 0;
+                while (finished < threads) {
+                    Chunk c = done.take();
+                    if (c == END) {
+                        synchronized (failure) {
+                            if (failure[0] != null) throw rethrow(failure[0]);
+                        }
+                        finished++;
+                        continue;
+                    }
+                    if (!ordered) {
+                        os.write(c.out, 0, c.outLen);
+                        puzzles += c.count;
+                        unsolved += c.unsolved;
+                        timedOut += c.timedOut;
+                        free.put(c);
+                        continue;
+                    }
+                    pending.put(c.seq, c);
+                    for (Chunk p; (p = pending.remove(next)) != null; next++) {
+                        os.write(p.out, 0, p.outLen);
+                        puzzles += p.count;
+                        unsolved += p.unsolved;
+                        timedOut += p.timedOut;
+                        free.put(p);
+                    }
+                }
+                reader.join();
+            } finally {
+                // normally all have finished; after an error this unblocks them
+                reader.interrupt();
+                for (Thread w : workers) w.interrupt();
+            }
+        }
+        if (readError[0] != null) throw readError[0];
+        return new Stats(puzzles, unsolved, timedOut, System.nanoTime() - start);
+    }
+
+    /** A worker's failure: unchecked, as its loop throws no checked exception but InterruptedException. */
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof Error) throw (Error) t;
+        throw (RuntimeException) t;
+    }
+
+    private void solveChunks(BlockingQueue<Chunk> work, BlockingQueue<Chunk> done, Throwable[] failure) {
+        try {
+            SolverEngine solver = engine.create(0);
+            solver.setMetrics(metrics);
+            if (cache != null) solver = new CachingSolver(solver, cache);
+            Board board = new Board();
+            for (Chunk c; (c = work.take()) != END; ) {
+                solveChunk(c, solver, board);
+                done.put(c);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) { // Errors too: the lost chunk would hold back ordered output for good
+            synchronized (failure) {
+                if (failure[0] == null) failure[0] = e;
+            }
+        } finally {
+            done.add(END);
+        }
+    }
+
+    private void solveChunk(Chunk c, SolverEngine solver, Board board) {
+        int o = 0;
+        c.unsolved = c.timedOut = 0;
+        for (int k = 0; k < c.count; k++) {
+            int base = k * 81;
+            for (int i = 0; i < 81; i++) board.setCell(i, c.cells[base + i]);
+            boolean ok;
+            byte fail = '.';
+            if (timeoutMillis > 0) {
+                SolveResult result = solver.solve(board, CancellationToken.withTimeout(timeoutMillis));
+                ok = result.isSolved();
+                if (!result.isComplete()) {
+                    fail = '?';
+                    c.timedOut++;
+                } else if (!ok) {
+                    c.unsolved++;
+                }
+            } else {
+                ok = solver.solve(board);
+                if (!ok) c.unsolved++;
+            }
+            if (!ordered) {
+                String idx = Long.toString(c.firstIndex + k);
+                for (int j = 0; j < idx.length(); j++) c.out[o++] = (byte) idx.charAt(j);
+                c.out[o++] = ' ';
+            }
+            for (int i = 0; i < 81; i++) c.out[o++] = ok ? (byte) ('0' + board.cell(i)) : fail;
+            c.out[o++] = '\n';
+        }
+        c.outLen = o;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchSolver <in> <out> [--threads N] [--unordered] [--engine BACKTRACKING|ITERATIVE|DANCING_LINKS]"
+                    + " [--metrics] [--slow MS] [--cache N] [--timeout MS]");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean ordered = true;
+        Engine engine = Engine.BACKTRACKING;
+        SolverMetrics metrics = null;
+        long slowMillis = -1;
+        SolveCache cache = null;
+        long timeoutMillis = 0;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--unordered": ordered = false; break;
+                case "--engine": engine = Engine.valueOf(args[++i].toUpperCase()); break;
+                case "--metrics": metrics = new SolverMetrics(); break;
+                case "--slow": slowMillis = Long.parseLong(args[++i]); break;
+                case "--cache": cache = new SolveCache(Integer.parseInt(args[++i])); break;
+                case "--timeout": timeoutMillis = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (slowMillis >= 0) {
+            if (metrics == null) metrics = new SolverMetrics();
+            metrics.setSlowThreshold(slowMillis * 1_000_000);
+        }
+        BatchSolver batch = new BatchSolver(threads, ordered, engine);
+        if (metrics != null) {
+            metrics.register("BatchSolver");
+            batch.setMetrics(metrics);
+        }
+        batch.setCache(cache);
+        batch.setTimeout(timeoutMillis);
+        Stats stats = batch.run(Path.of(args[0]), Path.of(args[1]));
+        System.err.println(stats);
+        if (metrics != null) System.err.println(metrics);
+        if (cache != null) System.err.println(cache);
+    }
+}
@@ -1,68 +1,176 @@
 package sudoku;
 
-import java.util.Arrays;
-
 /**
- * Immutable-ish representation of a 9x9 Sudoku board.
+ * Immutable-ish representation of a Sudoku board: 9x9 by default, or any box order n
+ * from 2 to 5 (side n*n, so 4x4, 16x16 and 25x25 as well).
  * Uses 0 to represent empty cells.
+ * Cells are kept in one flat byte[] (row-major). {@link #copy()} is copy-on-write:
+ * the copy shares the cells until either board is modified, so snapshots are near-free.
+ * Copying marks the source as shared too, so it is a (volatile) write: several threads may
+ * copy one board, as long as none of them modifies it meanwhile.
  */
 public class Board {
+    /** Side of a classic board. */
     public static final int SIZE = 9;
-    private final int[][] grid;
+
+    private final int order;
+    private final int side;
+    private byte[] cells;
+    private volatile boolean shared; // cells may be referenced by another board: clone before writing
 
     public Board() {
-        grid = new int[SIZE][SIZE];
+        this(3);
     }
 
+    /** An empty board of box order n (side n*n). */
+    public Board(int boxOrder) {
+        order = checkOrder(boxOrder);
+        side = boxOrder * boxOrder;
+        cells = new byte[side * side];
+    }
+
+    /** A board with the given rows; the side must be a square (4, 9, 16 or 25). */
     public Board(int[][] initial) {
-        if (initial.length != SIZE) throw new IllegalArgumentException("Board must be 9x9");
-        grid = new int[SIZE][SIZE];
-        for (int r = 0; r < SIZE; r++) {
-            if (initial[r].length != SIZE) throw new IllegalArgumentException("Board must be 9x9");
-            System.arraycopy(initial[r], 0, grid[r], 0, SIZE);
+        this(orderOfSide(initial.length));
+        for (int r = 0; r < side; r++) {
+            if (initial[r].length != side) throw new IllegalArgumentException("Board must be " + side + "x" + side);
+            for (int c = 0; c < side; c++) cells[r * side + c] = (byte) initial[r][c];
+        }
+    }
+
+    private Board(byte[] cells, int order) {
+        this.order = order;
+        this.side = order * order;
+        this.cells = cells;
+        this.shared = true;
+    }
+
+    static int checkOrder(int boxOrder) {
+        if (boxOrder < 2 || boxOrder > CandidateGrid.MAX_ORDER) {
+            throw new IllegalArgumentException("Box order must be 2-" + CandidateGrid.MAX_ORDER + ": " + boxOrder);
         }
+        return boxOrder;
+    }
+
+    private static int orderOfSide(int side) {
+        for (int n = 2; n <= CandidateGrid.MAX_ORDER; n++) if (n * n == side) return n;
+        throw new IllegalArgumentException("Board side must be 4, 9, 16 or 25: " + side);
+    }
+
+    /**
+     * Parse the one-line 81-character format (row by row): digits 1-9 are givens,
+     * any other character ('0', '.') is an empty cell. Extra characters are ignored.
+     */
+    public static Board fromString(CharSequence s) {
+        return fromString(s, 3);
+    }
+
+    /**
+     * Parse the one-line format of a board of box order n: side*side characters, digits 1-9
+     * and then letters for 10 and up (A or a = 10, ... P = 25); anything else is empty.
+     */
+    public static Board fromString(CharSequence s, int boxOrder) {
+        Board b = new Board(boxOrder);
+        int count = b.cells.length;
+        if (s.length() < count) throw new IllegalArgumentException("Expected " + count + " cells, got " + s.length());
+        for (int i = 0; i < count; i++) {
+            int v = digitOf(s.charAt(i));
+            b.cells[i] = (byte) (v <= b.side ? v : 0);
+        }
+        return b;
+    }
+
+    private static int digitOf(char ch) {
+        if (ch >= '1' && ch <= '9') return ch - '0';
+        if (ch >= 'A' && ch <= 'Z') return ch - 'A' + 10;
+        if (ch >= 'a' && ch <= 'z') return ch - 'a' + 10;
+        return 0;
+    }
+
+    /** Box order n. */
+    public int boxOrder() {
+        return order;
+    }
+
+    /** Side n*n: number of rows, columns and digits. */
+    public int size() {
+        return side;
     }
 
     public int get(int r, int c) {
-        return grid[r][c];
+        return cells[r * side + c];
+    }
+
+    /** Cell i in row-major order (i = r*size + c). */
+    public int cell(int i) {
+        return cells[i];
     }
 
     public void set(int r, int c, int val) {
-        grid[r][c] = val;
+        setCell(r * side + c, val);
+    }
+
+    public void setCell(int i, int val) {
+        if (shared) unshare();
+        cells[i] = (byte) val;
     }
 
     public void clear(int r, int c) {
-        grid[r][c] = 0;
+        setCell(r * side + c, 0);
     }
 
     public int[][] getGridCopy() {
-        int[][] copy = new int[SIZE][SIZE];
-        for (int r = 0; r < SIZE; r++) System.arraycopy(grid[r], 0, copy[r], 0, SIZE);
+        int[][] copy = new int[side][side];
+        for (int r = 0; r < side; r++)
+            for (int c = 0; c < side; c++) copy[r][c] = cells[r * side + c];
         return copy;
     }
 
+    /** A copy sharing this board's cells until one of them is modified. */
     public Board copy() {
-        return new Board(getGridCopy());
+        shared = true;
+        return new Board(cells, order);
     }
 
     public boolean isFull() {
-        for (int r = 0; r < SIZE; r++)
-            for (int c = 0; c < SIZE; c++)
-                if (grid[r][c] == 0) return false;
+        for (int i = 0; i < cells.length; i++)
+            if (cells[i] == 0) return false;
         return true;
     }
 
     public void clearAll() {
-        for (int r = 0; r < SIZE; r++) Arrays.fill(grid[r], 0);
+        if (shared) {
+            cells = new byte[cells.length];
+            shared = false;
+        } else {
+            for (int i = 0; i < cells.length; i++) cells[i] = 0;
+        }
+    }
+
+    private void unshare() {
+        cells = cells.clone();
+        shared = false;
+    }
+
+    /** The one-line format, '0' for empty cells (letters from 10 up, see {@link #fromString(CharSequence, int)}). */
+    public String toLine() {
+        StringBuilder sb = new StringBuilder(cells.length);
+        for (int i = 0; i < cells.length; i++) {
+            int v = cells[i];
+            sb.append((char) (v < 10 ? '0' + v : 'A' + v - 10));
+        }
+        return sb.toString();
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int r = 0; r < SIZE; r++) {
-            for (int c = 0; c < SIZE; c++) {
-                sb.append(grid[r][c]);
-                if (c < SIZE-1) sb.append(' ');
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int v = cells[r * side + c];
+                if (side > 9 && v < 10) sb.append(' ');
+                sb.append(v);
+                if (c < side-1) sb.append(' ');
             }
             sb.append('\n');
         }
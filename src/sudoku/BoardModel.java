@@ -0,0 +1,126 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Editable board that keeps its validity up to date incrementally, for the GUI: per unit it
+ * counts how often each digit occurs, so every {@link #set} costs O(1) and conflicts,
+ * candidates and overall validity are answered without rescanning the board.
+ * Listeners hear about each changed cell. Not thread-safe (used on the Swing thread).
+ */
+public class BoardModel {
+
+    /** Notified after a cell changed value. */
+    public interface Listener {
+        void cellChanged(int r, int c);
+    }
+
+    private final Board board;
+    private final int order;
+    private final int side;
+    // occurrences of digit d in unit u at [u * (side + 1) + d]: rows, then columns, then boxes
+    private final int[] counts;
+    // digits present per unit, same order as counts
+    private final int[] present;
+    private int duplicates; // (unit, digit) pairs occurring more than once
+    private final List<Listener> listeners = new ArrayList<>();
+
+    public BoardModel() {
+        this(3);
+    }
+
+    public BoardModel(int boxOrder) {
+        board = new Board(boxOrder);
+        order = boxOrder;
+        side = boxOrder * boxOrder;
+        counts = new int[3 * side * (side + 1)];
+        present = new int[3 * side];
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public int size() {
+        return side;
+    }
+
+    public int get(int r, int c) {
+        return board.get(r, c);
+    }
+
+    /** Put val (0 to clear) in cell (r, c), updating the counts of its three units. */
+    public void set(int r, int c, int val) {
+        if (val < 0 || val > side) throw new IllegalArgumentException("Value must be 0-" + side + ": " + val);
+        int old = board.get(r, c);
+        if (old == val) return;
+        int b = box(r, c);
+        if (old != 0) {
+            remove(r, old);
+            remove(side + c, old);
+            remove(2 * side + b, old);
+        }
+        if (val != 0) {
+            add(r, val);
+            add(side + c, val);
+            add(2 * side + b, val);
+        }
+        board.set(r, c, val);
+        for (Listener l : listeners) l.cellChanged(r, c);
+    }
+
+    /** Replace every cell with the contents of b (same size). */
+    public void load(Board b) {
+        for (int r = 0; r < side; r++)
+            for (int c = 0; c < side; c++) set(r, c, b.get(r, c));
+    }
+
+    public void clearAll() {
+        for (int r = 0; r < side; r++)
+            for (int c = 0; c < side; c++) set(r, c, 0);
+    }
+
+    /** True if no digit occurs twice in a row, column or box; same answer as {@link Solver#isValidBoard}. */
+    public boolean isValid() {
+        return duplicates == 0;
+    }
+
+    /** True if cell (r, c) holds a digit that also occurs elsewhere in one of its units. */
+    public boolean isConflict(int r, int c) {
+        int v = board.get(r, c);
+        if (v == 0) return false;
+        return count(r, v) > 1 || count(side + c, v) > 1 || count(2 * side + box(r, c), v) > 1;
+    }
+
+    /** Digits not yet used in the row, column or box of (r, c), as a mask (bit d-1 set = digit d). */
+    public int candidates(int r, int c) {
+        int used = present[r] | present[side + c] | present[2 * side + box(r, c)];
+        return (1 << side) - 1 & ~used;
+    }
+
+    /** A copy of the current board. */
+    public Board toBoard() {
+        return board.copy();
+    }
+
+    private int box(int r, int c) {
+        return (r / order) * order + c / order;
+    }
+
+    private int count(int unit, int d) {
+        return counts[unit * (side + 1) + d];
+    }
+
+    private void add(int unit, int d) {
+        int n = ++counts[unit * (side + 1) + d];
+        if (n == 1) present[unit] |= 1 << (d - 1);
+        else if (n == 2) duplicates++;
+    }
+
+    private void remove(int unit, int d) {
+        int n = --counts[unit * (side + 1) + d];
+        if (n == 0) present[unit] &= ~(1 << (d - 1));
+        else if (n == 1) duplicates--;
+    }
+}
@@ -0,0 +1,47 @@
+package sudoku;
+
+/** The sample puzzles from samples/ (easy/medium/hard), built in so the GUI and benchmarks don't need files. */
+public class BoardSamples {
+
+    public static Board sampleEasy() {
+        return new Board(new int[][]{
+            {5,3,0,0,7,0,0,0,0},
+            {6,0,0,1,9,5,0,0,0},
+            {0,9,8,0,0,0,0,6,0},
+            {8,0,0,0,6,0,0,0,3},
+            {4,0,0,8,0,3,0,0,1},
+            {7,0,0,0,2,0,0,0,6},
+            {0,6,0,0,0,0,2,8,0},
+            {0,0,0,4,1,9,0,0,5},
+            {0,0,0,0,8,0,0,7,9}
+        });
+    }
+
+    public static Board sampleMedium() {
+        return new Board(new int[][]{
+            {0,0,0,0,0,0,2,0,0},
+            {0,0,0,0,0,7,0,0,9},
+            {0,0,6,0,0,0,5,0,0},
+            {8,0,0,0,0,0,0,9,0},
+            {0,0,0,4,0,0,0,0,0},
+            {0,0,0,0,0,1,0,0,0},
+            {0,7,0,6,0,0,0,0,0},
+            {0,0,0,0,0,0,0,1,0},
+            {0,0,0,0,3,0,0,0,0}
+        });
+    }
+
+    public static Board sampleHard() {
+        return new Board(new int[][]{
+            {0,0,0,0,0,0,0,1,2},
+            {0,0,0,0,0,7,0,0,0},
+            {0,0,1,0,0,0,0,0,0},
+            {0,0,0,0,5,0,4,0,7},
+            {0,0,0,0,0,0,0,0,0},
+            {8,0,2,0,4,0,0,0,0},
+            {0,0,0,0,0,0,1,0,0},
+            {0,0,0,8,0,0,0,0,0},
+            {4,3,0,0,0,0,0,0,0}
+        });
+    }
+}
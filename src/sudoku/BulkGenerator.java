@@ -0,0 +1,204 @@
+package sudoku;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Generates many puzzles in parallel. Every worker thread runs its own {@link Generator}
+ * seeded from a {@link SplittableRandom} split off the master seed, so each worker's stream
+ * of puzzles is reproducible (which worker gets to emit next is up to the scheduler).
+ * Puzzles equivalent under Sudoku symmetries (see {@link Canonicalizer}) to one already
+ * produced are dropped; the canonical fingerprints are kept in a {@link LongHashSet}.
+ *
+ * The sink is called from the workers, one puzzle at a time (calls never overlap).
+ *
+ * Usage: java -cp bin sudoku.BulkGenerator count easy|medium|hard|minimal out.txt [--threads N] [--seed S]
+ *        [--clues N] [--symmetric]
+ * An output name ending in .pzl is written as a binary {@link PuzzleFile} instead of text lines.
+ * minimal makes minimal puzzles of at most --clues clues (22 by default, at least 17), see
+ * {@link Generator#generateMinimal}; every worker restarts from a new grid after each failed attempt.
+ * After --attempts N attempts in all (1000 per puzzle asked for by default) the run stops with
+ * what it has, so a target out of reach ends instead of running forever.
+ */
+public class BulkGenerator {
+
+    private final int threads;
+    private final long seed;
+    private final LongHashSet seen;
+
+    public BulkGenerator(int threads, long seed) {
+        this(threads, seed, new LongHashSet());
+    }
+
+    /** Share seen with other runs to deduplicate against everything they produced. */
+    public BulkGenerator(int threads, long seed, LongHashSet seen) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        this.threads = threads;
+        this.seed = seed;
+        this.seen = seen;
+    }
+
+    /** Totals of one run. */
+    public static final class Result {
+        /** Fewer than asked for if the attempts ran out. */
+        public final long puzzles;
+        public final long duplicates;
+        /** Calls of the generator, successful or not. */
+        public final long attempts;
+        public final long nanos;
+
+        Result(long puzzles, long duplicates, long attempts, long nanos) {
+            this.puzzles = puzzles;
+            this.duplicates = duplicates;
+            this.attempts = attempts;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d puzzles, %d duplicates dropped, %d attempts, %.2f s, %.0f puzzles/s",
+                    puzzles, duplicates, attempts, nanos / 1e9, nanos == 0 ? 0 : puzzles * 1e9 / nanos);
+        }
+    }
+
+    /** Attempts per minimal puzzle asked for, by default. */
+    public static final int MINIMAL_ATTEMPTS_PER_PUZZLE = 1000;
+
+    /** Produce count distinct puzzles with the given blank target and pass each to sink. */
+    public Result generate(long count, int blanksTarget, Consumer<Board> sink) throws InterruptedException {
+        return run(count, Long.MAX_VALUE, g -> g.generate(blanksTarget), sink);
+    }
+
+    /** As below, with {@link #MINIMAL_ATTEMPTS_PER_PUZZLE} attempts per puzzle. */
+    public Result generateMinimal(long count, int maxClues, boolean symmetric, Consumer<Board> sink) throws InterruptedException {
+        long attempts = count > Long.MAX_VALUE / MINIMAL_ATTEMPTS_PER_PUZZLE ? Long.MAX_VALUE : count * MINIMAL_ATTEMPTS_PER_PUZZLE;
+        return generateMinimal(count, maxClues, symmetric, attempts, sink);
+    }
+
+    /**
+     * Produce count distinct minimal puzzles of at most maxClues (17 or more) clues, giving up
+     * after maxAttempts attempts in all: then the result has fewer puzzles. With count 1 this is
+     * a parallel restart search: the first worker to get there wins.
+     */
+    public Result generateMinimal(long count, int maxClues, boolean symmetric, long maxAttempts, Consumer<Board> sink)
+            throws InterruptedException {
+        if (maxClues < Generator.MIN_CLUES) {
+            throw new IllegalArgumentException("No unique puzzle has fewer than " + Generator.MIN_CLUES + " clues: " + maxClues);
+        }
+        return run(count, maxAttempts, g -> g.generateMinimal(maxClues, symmetric, 1), sink);
+    }
+
+    /**
+     * Workers call next on their generator until count puzzles are accepted or maxAttempts calls
+     * were made; null puzzles are skipped.
+     */
+    private Result run(long count, long maxAttempts, Function<Generator, Board> next, Consumer<Board> sink)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong duplicates = new AtomicLong();
+        AtomicLong attempts = new AtomicLong();
+        RuntimeException[] failure = new RuntimeException[1];
+        SplittableRandom master = new SplittableRandom(seed);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long workerSeed = master.split().nextLong();
+            workers[t] = new Thread(() -> {
+                Generator generator = new Generator(workerSeed);
+                Canonicalizer canonicalizer = new Canonicalizer();
+                try {
+                    while (accepted.get() < count && attempts.getAndIncrement() < maxAttempts) {
+                        Board puzzle = next.apply(generator);
+                        if (puzzle == null) continue;
+                        long fp = canonicalizer.fingerprint(puzzle);
+                        synchronized (seen) {
+                            if (accepted.get() >= count) break;
+                            if (!seen.add(fp)) {
+                                duplicates.incrementAndGet();
+                                continue;
+                            }
+                            accepted.incrementAndGet();
+                            sink.accept(puzzle);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (failure) {
+                        if (failure[0] == null) failure[0] = e;
+                    }
+                    accepted.set(Long.MAX_VALUE); // stop the others
+                }
+            }, "bulk-generator-" + t);
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        if (failure[0] != null) throw failure[0];
+        return new Result(Math.min(accepted.get(), count), duplicates.get(), Math.min(attempts.get(), maxAttempts),
+                System.nanoTime() - start);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: BulkGenerator <count> <easy|medium|hard|minimal> <out> [--threads N] [--seed S]"
+                    + " [--clues N] [--symmetric] [--attempts N]");
+            System.exit(2);
+        }
+        long count = Long.parseLong(args[0]);
+        int blanks = Generator.difficultyToBlanks(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        int clues = 22;
+        boolean symmetric = false;
+        long attempts = count > Long.MAX_VALUE / MINIMAL_ATTEMPTS_PER_PUZZLE ? Long.MAX_VALUE : count * MINIMAL_ATTEMPTS_PER_PUZZLE;
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--clues": clues = Integer.parseInt(args[++i]); break;
+                case "--symmetric": symmetric = true; break;
+                case "--attempts": attempts = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        boolean minimal = args[1].equalsIgnoreCase("minimal");
+        if (minimal && clues < Generator.MIN_CLUES) {
+            System.err.println("--clues must be at least " + Generator.MIN_CLUES + ": no unique puzzle has fewer");
+            System.exit(2);
+        }
+        BulkGenerator bulk = new BulkGenerator(threads, seed);
+        Path out = Path.of(args[2]);
+        Result result;
+        if (out.toString().endsWith(".pzl")) {
+            int difficulty = PuzzleFile.difficultyCode(args[1]);
+            try (PuzzleFile.Writer w = new PuzzleFile.Writer(out)) {
+                Consumer<Board> sink = b -> {
+                    try {
+                        w.add(b, difficulty);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+                result = minimal ? bulk.generateMinimal(count, clues, symmetric, attempts, sink) : bulk.generate(count, blanks, sink);
+            }
+        } else {
+            try (BufferedWriter w = Files.newBufferedWriter(out)) {
+                Consumer<Board> sink = b -> {
+                    try {
+                        w.write(b.toLine());
+                        w.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+                result = minimal ? bulk.generateMinimal(count, clues, symmetric, attempts, sink) : bulk.generate(count, blanks, sink);
+            }
+        }
+        System.err.println(result);
+    }
+}
@@ -0,0 +1,102 @@
+package sudoku;
+
+/**
+ * Engine that answers {@link #solve} from a shared {@link SolveCache} when an equivalent
+ * puzzle (same canonical form, e.g. relabeled or rotated) was solved before. On a miss the
+ * canonical form is solved by the wrapped engine and cached; either way the canonical
+ * solution is mapped back to the caller's puzzle through the inverse transform.
+ *
+ * Canonicalizing costs more than solving an easy puzzle, so the cache pays off on workloads
+ * with hard puzzles or many repeats. {@link #countSolutions} is not cached.
+ * A listener hears the search of a miss mapped back to the caller's cells and digits; a hit
+ * has no search, so it reports no events.
+ * Like the other engines an instance is not thread-safe; the cache is.
+ */
+public class CachingSolver implements SolverEngine {
+
+    private final SolverEngine engine;
+    private final SolveCache cache;
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+    private final Canonicalizer.Transform transform = new Canonicalizer.Transform();
+    private final int[] form = new int[81];
+    private final Board canonical = new Board();
+    private SolveListener listener;
+    private final SolveListener toCaller = new SolveListener() { // events of a canonical-form search
+        @Override
+        public void placed(int cell, int digit, boolean guess) {
+            listener.placed(transform.sourceCell(cell), transform.sourceDigit(digit), guess);
+        }
+
+        @Override
+        public void cleared(int cell) {
+            listener.cleared(transform.sourceCell(cell));
+        }
+    };
+
+    public CachingSolver(SolverEngine engine, SolveCache cache) {
+        this.engine = engine;
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean solve(Board board) {
+        canonicalizer.canonicalize(board, form, transform);
+        byte[] cached = cache.get(form);
+        if (cached == SolveCache.NO_SOLUTION) return false;
+        if (cached != null) {
+            PuzzleList.unpack(cached, 0, canonical);
+        } else {
+            for (int i = 0; i < 81; i++) canonical.setCell(i, form[i]);
+            boolean solved = engine.solve(canonical);
+            cache.put(form, solved ? canonical : null);
+            if (!solved) return false;
+        }
+        transform.invert(canonical, board);
+        return true;
+    }
+
+    /** As {@link #solve(Board)}; only searches that ran to the end are cached. */
+    @Override
+    public SolveResult solve(Board board, CancellationToken token) {
+        long t0 = System.nanoTime();
+        canonicalizer.canonicalize(board, form, transform);
+        byte[] cached = cache.get(form);
+        SolveResult result;
+        if (cached == SolveCache.NO_SOLUTION) {
+            return new SolveResult(SolveResult.Status.UNSOLVABLE, 0, 0, 0, 0, System.nanoTime() - t0);
+        } else if (cached != null) {
+            PuzzleList.unpack(cached, 0, canonical);
+            result = new SolveResult(SolveResult.Status.SOLVED, 0, 0, 0, 0, System.nanoTime() - t0);
+        } else {
+            for (int i = 0; i < 81; i++) canonical.setCell(i, form[i]);
+            SolveResult r = engine.solve(canonical, token);
+            if (r.isComplete()) cache.put(form, r.isSolved() ? canonical : null);
+            result = new SolveResult(r.status, r.nodes, r.backtracks, r.guesses, r.maxDepth, System.nanoTime() - t0);
+            if (!result.isSolved()) return result;
+        }
+        transform.invert(canonical, board);
+        return result;
+    }
+
+    @Override
+    public int countSolutions(Board board) {
+        if (listener == null) return engine.countSolutions(board);
+        engine.setListener(listener); // searches the caller's board itself
+        try {
+            return engine.countSolutions(board);
+        } finally {
+            engine.setListener(toCaller);
+        }
+    }
+
+    @Override
+    public void setMetrics(SolverMetrics metrics) {
+        engine.setMetrics(metrics);
+    }
+
+    @Override
+    public void setListener(SolveListener listener) {
+        this.listener = listener;
+        engine.setListener(listener == null ? null : toCaller);
+    }
+}
@@ -0,0 +1,329 @@
+package sudoku;
+
+/**
+ * Search state shared by the solver and its propagation rules: cell values,
+ * masks of digits used per row/col/box, and per-cell candidate masks kept up to date
+ * by every placement and elimination. Every change goes onto a trail so the solver
+ * can undo back to a mark, and the units it touches go onto a queue for the rules
+ * (see {@link #nextChangedUnit()}).
+ *
+ * A grid has a fixed box order n (side n*n, see {@link Board#boxOrder()}); masks are ints
+ * with bit d-1 set for digit d, which covers boards up to 25x25.
+ */
+public final class CandidateGrid {
+
+    /** Largest supported box order: 25 digits still fit an int mask. */
+    public static final int MAX_ORDER = 5;
+
+    /** Cell and unit tables per box order, built once. */
+    private static final class Layout {
+        final int[] row, col, box;
+        /** Per cell, the other cells sharing a row, column or box with it. */
+        final int[][] peers;
+        /** Per cell, its three units as bits: units 0-63 in unitsLo, 64 and up in unitsHi. */
+        final long[] unitsLo, unitsHi;
+        /** 3n^2 units: n^2 rows, n^2 cols, n^2 boxes, each listing its cells. */
+        final int[][] units;
+
+        Layout(int n) {
+            int side = n * n, cells = side * side;
+            row = new int[cells];
+            col = new int[cells];
+            box = new int[cells];
+            units = new int[3 * side][side];
+            for (int i = 0; i < cells; i++) {
+                row[i] = i / side;
+                col[i] = i % side;
+                box[i] = (row[i] / n) * n + col[i] / n;
+                units[row[i]][col[i]] = i;
+                units[side + col[i]][row[i]] = i;
+                units[2 * side + box[i]][(row[i] % n) * n + col[i] % n] = i;
+            }
+            peers = new int[cells][3 * (side - 1) - 2 * (n - 1)];
+            unitsLo = new long[cells];
+            unitsHi = new long[cells];
+            for (int i = 0; i < cells; i++) {
+                for (int u : new int[]{row[i], side + col[i], 2 * side + box[i]}) {
+                    if (u < 64) unitsLo[i] |= 1L << u; else unitsHi[i] |= 1L << u;
+                }
+                int k = 0;
+                for (int j = 0; j < cells; j++) {
+                    if (j != i && (row[j] == row[i] || col[j] == col[i] || box[j] == box[i])) peers[i][k++] = j;
+                }
+            }
+        }
+    }
+
+    private static final Layout[] LAYOUTS = new Layout[MAX_ORDER + 1];
+
+    static {
+        for (int n = 2; n <= MAX_ORDER; n++) LAYOUTS[n] = new Layout(n);
+    }
+
+    private final int order;
+    private final int side;
+    private final int cellCount;
+    private final int all;
+    private final int[] row, col, box;
+    private final int[][] peers;
+    private final long[] unitsLo, unitsHi;
+    private final int[][] units;
+
+    private final int[] cells;
+    private final int[] rowUsed;
+    private final int[] colUsed;
+    private final int[] boxUsed;
+    private final int[] candidates; // 0 for filled cells
+    private int filled;
+    private boolean conflicts; // two givens share a unit
+
+    // pairs of (cell, previous candidates), with the cell as ~cell for a placement
+    private final int[] trail;
+    private int top;
+
+    // units changed since the rules last looked: bit u of changedLo, or of changedHi from 64 on (25x25 has 75)
+    private long changedLo, changedHi;
+    private int next; // nextChangedUnit looks from here on, wrapping around
+    private SolveListener listener; // null unless a search is being watched
+
+    /** A grid for classic 9x9 boards. */
+    public CandidateGrid() {
+        this(3);
+    }
+
+    public CandidateGrid(int boxOrder) {
+        Board.checkOrder(boxOrder);
+        Layout layout = LAYOUTS[boxOrder];
+        order = boxOrder;
+        side = boxOrder * boxOrder;
+        cellCount = side * side;
+        all = (1 << side) - 1;
+        row = layout.row;
+        col = layout.col;
+        box = layout.box;
+        peers = layout.peers;
+        unitsLo = layout.unitsLo;
+        unitsHi = layout.unitsHi;
+        units = layout.units;
+        cells = new int[cellCount];
+        rowUsed = new int[side];
+        colUsed = new int[side];
+        boxUsed = new int[side];
+        candidates = new int[cellCount];
+        // a placement logs one pair, anything else clears at least one bit of an empty cell
+        trail = new int[2 * (cellCount + cellCount * side)];
+    }
+
+    /**
+     * Reset to the contents of the board, with every unit queued as changed.
+     * Conflicting givens are kept as they are (see {@link #hasConflicts()}).
+     */
+    public void load(Board board) {
+        if (board.boxOrder() != order) {
+            throw new IllegalArgumentException("Board is " + board.size() + "x" + board.size() + ", grid is " + side + "x" + side);
+        }
+        for (int i = 0; i < side; i++) {
+            rowUsed[i] = 0;
+            colUsed[i] = 0;
+            boxUsed[i] = 0;
+        }
+        filled = 0;
+        top = 0;
+        conflicts = false;
+        for (int i = 0; i < cellCount; i++) {
+            int v = board.cell(i);
+            cells[i] = v;
+            if (v != 0) {
+                int bit = 1 << (v - 1);
+                if (((rowUsed[row[i]] | colUsed[col[i]] | boxUsed[box[i]]) & bit) != 0) conflicts = true;
+                use(i, bit);
+                filled++;
+            }
+        }
+        for (int i = 0; i < cellCount; i++) {
+            candidates[i] = cells[i] != 0 ? 0 : all & ~(rowUsed[row[i]] | colUsed[col[i]] | boxUsed[box[i]]);
+        }
+        int units = 3 * side;
+        changedLo = units >= 64 ? -1L : (1L << units) - 1;
+        changedHi = units > 64 ? (1L << units - 64) - 1 : 0;
+    }
+
+    /** Write the current cell values into the board. */
+    public void store(Board board) {
+        for (int i = 0; i < cellCount; i++) board.setCell(i, cells[i]);
+    }
+
+    /** Box order n. */
+    public int order() {
+        return order;
+    }
+
+    /** Side n^2: cells per unit and number of digits. */
+    public int side() {
+        return side;
+    }
+
+    /** Number of cells, n^4. */
+    public int cells() {
+        return cellCount;
+    }
+
+    /** Number of units, 3n^2. */
+    public int unitCount() {
+        return 3 * side;
+    }
+
+    /** Mask with every digit set. */
+    public int all() {
+        return all;
+    }
+
+    public int row(int i) {
+        return row[i];
+    }
+
+    public int col(int i) {
+        return col[i];
+    }
+
+    public int box(int i) {
+        return box[i];
+    }
+
+    public int get(int i) {
+        return cells[i];
+    }
+
+    public boolean isEmpty(int i) {
+        return cells[i] == 0;
+    }
+
+    /** True if two givens of the loaded board share a unit: then there is no solution. */
+    public boolean hasConflicts() {
+        return conflicts;
+    }
+
+    /** Number of non-empty cells. */
+    public int filled() {
+        return filled;
+    }
+
+    /** Candidate digits of cell i as a mask (bit d-1 set = digit d possible); 0 once it is filled. */
+    public int candidates(int i) {
+        return candidates[i];
+    }
+
+    /** Mask of digits already placed in the given unit (see {@link #unit}). */
+    public int used(int unit) {
+        if (unit < side) return rowUsed[unit];
+        if (unit < 2 * side) return colUsed[unit - side];
+        return boxUsed[unit - 2 * side];
+    }
+
+    /** Cells of unit u: rows first (0..side-1), then columns, then boxes (each box row-major). */
+    public int[] unit(int u) {
+        return units[u];
+    }
+
+    /** Hear about every placement and undone placement from now on (null: stop). */
+    public void setListener(SolveListener listener) {
+        this.listener = listener;
+    }
+
+    public void place(int i, int digit) {
+        place(i, digit, false);
+    }
+
+    /** As {@link #place(int, int)}; guess tells the listener the search chose the digit. */
+    public void place(int i, int digit, boolean guess) {
+        if (listener != null) listener.placed(i, digit, guess);
+        int bit = 1 << (digit - 1);
+        cells[i] = digit;
+        use(i, bit);
+        filled++;
+        trail[top++] = ~i;
+        trail[top++] = candidates[i];
+        candidates[i] = 0;
+        touchUnits(i);
+        for (int p : peers[i]) {
+            int m = candidates[p];
+            if ((m & bit) == 0) continue;
+            trail[top++] = p;
+            trail[top++] = m;
+            candidates[p] = m & ~bit;
+            touchUnits(p);
+        }
+    }
+
+    /** Remove the candidates in mask from empty cell i. Returns true if anything changed. */
+    public boolean eliminate(int i, int mask) {
+        int old = candidates[i];
+        if ((old & mask) == 0) return false;
+        trail[top++] = i;
+        trail[top++] = old;
+        candidates[i] = old & ~mask;
+        touchUnits(i);
+        return true;
+    }
+
+    /**
+     * Take a unit from the queue of units where a cell was placed or lost candidates (all three
+     * units of such a cell are queued), or -1 when it is empty. Propagation rules use it to look
+     * only at what changed. Units are taken in rounds: one queued again waits for those after it.
+     */
+    public int nextChangedUnit() {
+        long lo = changedLo, hi = changedHi;
+        if ((lo | hi) == 0) return -1;
+        long fromLo = next < 64 ? lo & -1L << next : 0;
+        long fromHi = next < 64 ? hi : hi & -1L << next;
+        int u = fromLo != 0 ? Long.numberOfTrailingZeros(fromLo)
+                : fromHi != 0 ? 64 + Long.numberOfTrailingZeros(fromHi)
+                : lo != 0 ? Long.numberOfTrailingZeros(lo)
+                : 64 + Long.numberOfTrailingZeros(hi);
+        if (u < 64) changedLo = lo & ~(1L << u); else changedHi = hi & ~(1L << u);
+        next = u + 1;
+        return u;
+    }
+
+    /** Current trail position, to pass to {@link #undo} later. */
+    public int mark() {
+        return top;
+    }
+
+    /**
+     * Undo every placement and elimination made after the given mark. The queue of changed
+     * units is emptied too, so undo back to grids whose changes the rules have already seen.
+     */
+    public void undo(int mark) {
+        while (top > mark) {
+            int old = trail[--top];
+            int i = trail[--top];
+            if (i < 0) {
+                i = ~i;
+                release(i, 1 << (cells[i] - 1));
+                cells[i] = 0;
+                filled--;
+                if (listener != null) listener.cleared(i);
+            }
+            candidates[i] = old;
+        }
+        changedLo = changedHi = 0;
+    }
+
+    private void touchUnits(int i) {
+        changedLo |= unitsLo[i];
+        changedHi |= unitsHi[i];
+    }
+
+    private void use(int i, int bit) {
+        rowUsed[row[i]] |= bit;
+        colUsed[col[i]] |= bit;
+        boxUsed[box[i]] |= bit;
+    }
+
+    private void release(int i, int bit) {
+        rowUsed[row[i]] &= ~bit;
+        colUsed[col[i]] &= ~bit;
+        boxUsed[box[i]] &= ~bit;
+    }
+}
@@ -0,0 +1,537 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Maps a puzzle (or full grid) to a canonical representative of its equivalence class under
+ * Sudoku symmetries: transposition, band and stack permutations, row permutations within
+ * bands, column permutations within stacks and digit relabeling. Two boards are equivalent
+ * exactly when their canonical forms are equal.
+ *
+ * The canonical form is the lexicographically smallest 81-cell string (row-major, 0 for empty)
+ * over all transformations, with digits relabeled 1, 2, 3... in order of first appearance.
+ * It is built cell by cell, depth-first, without enumerating the 3.36M transformations: each
+ * cell is compared with the best form so far as soon as it is known, and a branch is cut when
+ * it compares greater. For each transposition the top row is chosen first, then the stacks in
+ * order; rows are placed slot by slot (any unused band, then the rest of that band).
+ * Columns are only fixed once they make a difference:
+ * <ul>
+ * <li>Within a stack the top row's empty columns come first. They stay open, interchangeable,
+ * until a later row has a digit in some of them; the empty ones still go first.</li>
+ * <li>A full top row always reads 123456789, so it fixes no column. The next row fixes them:
+ * each digit's value is the position of its top-row column, which is placed in the earliest
+ * position it can still take.</li>
+ * </ul>
+ * Before a slot's rows are searched, each candidate's smallest reading there is worked out
+ * and only the candidates reading smallest are searched (top rows likewise, by the empty
+ * cells of each stack), instead of every candidate that is not worse than the best so far.
+ * Empty rows of the same band are interchangeable; only one of them is tried.
+ *
+ * The symmetry that produced the canonical form can be captured as a {@link Transform}, which
+ * maps boards (e.g. a solution of the canonical puzzle) between the two forms.
+ *
+ * Instances keep their workspaces, allocate nothing per call (except {@link #canonical}) and
+ * are not thread-safe.
+ */
+public class Canonicalizer {
+
+    /** Source cell of cell i of the transposed board. */
+    private static final int[] TRANSPOSED = new int[81];
+
+    static {
+        for (int i = 0; i < 81; i++) TRANSPOSED[i] = i % 9 * 9 + i / 9;
+    }
+
+    private final int[] src = new int[81];       // the board, transposed or not
+    private final int[] cols = new int[9];       // column at each position, -1 while open
+    private final int[] posOf = new int[9];      // position of each column, -1 while open
+    private final int[] slotStack = new int[3];  // stack at each group of three positions, -1 while open
+    private final int[] stackSlot = new int[3];
+    private final int[] best = new int[81];
+    private int bestCells;                       // leading cells of best that are valid
+    private final int[] labels = new int[10];    // digit relabeling of the current branch, 0 = not seen yet
+    private final int[] topColumn = new int[10]; // column of each digit in a full top row
+    private final boolean[] rowUsed = new boolean[9];
+    private final boolean[] rowEmpty = new boolean[9];
+    private final int[] slotRow = new int[9];    // row placed in each slot
+    private final long[][] rowKeys = new long[9][9]; // smallest reading of each candidate row, per slot
+    private final int[] topRank = new int[18];   // per transposition and row, see rankTopRows
+    private boolean distinct;                    // no row or column repeats a digit: keys are exact
+    private final int[] order = new int[9];      // for the transform: cols with the open ones filled in
+    private final int[] cells = new int[81];     // for canonical(Board) and fingerprint(Board)
+    private boolean transposed;                  // of src
+    private Transform found;                     // receives the transform of each new best form
+
+    public Canonicalizer() {
+        Arrays.fill(cols, -1);
+        Arrays.fill(posOf, -1);
+        Arrays.fill(slotStack, -1);
+        Arrays.fill(stackSlot, -1);
+    }
+
+    /** Write the canonical form of b into out (81 cells, row-major, 0 = empty). */
+    public void canonicalize(Board b, int[] out) {
+        canonicalize(b, out, null);
+    }
+
+    /** As {@link #canonicalize(Board, int[])}, also storing the transform from b to out in transform. */
+    public void canonicalize(Board b, int[] out, Transform transform) {
+        if (b.size() != 9) throw new IllegalArgumentException("Only 9x9 boards can be canonicalized");
+        found = transform;
+        bestCells = 0;
+        int topRankMax = rankTopRows(b);
+        for (int t = 0; t < 2; t++) {
+            transposed = t == 1;
+            for (int i = 0; i < 81; i++) src[i] = b.cell(transposed ? TRANSPOSED[i] : i);
+            for (int r = 0; r < 9; r++) {
+                boolean empty = true;
+                for (int c = 0; c < 9; c++) empty &= src[r * 9 + c] == 0;
+                rowEmpty[r] = empty;
+            }
+            for (int r = 0; r < 9; r++) {
+                if (rowEmpty[r] && r % 3 != 0 && rowEmpty[r - 1]) continue; // same as the empty row above
+                if (distinct && topRank[t * 9 + r] != topRankMax) continue;
+                rowUsed[r] = true;
+                slotRow[0] = r;
+                if (isFullRow(r)) searchFullTop();
+                else searchStacks(0, 1);
+                rowUsed[r] = false;
+            }
+        }
+        System.arraycopy(best, 0, out, 0, 81);
+        if (transform != null) transform.completeDigits();
+        found = null;
+    }
+
+    /** The canonical form as a Board. */
+    public Board canonical(Board b) {
+        canonicalize(b, cells);
+        Board c = new Board();
+        for (int i = 0; i < 81; i++) c.setCell(i, cells[i]);
+        return c;
+    }
+
+    /**
+     * 64-bit hash of the canonical form. Equivalent boards always get the same value;
+     * distinct classes collide with probability about 2^-64 per pair.
+     */
+    public long fingerprint(Board b) {
+        canonicalize(b, cells);
+        return fingerprint(cells);
+    }
+
+    static long fingerprint(int[] cells) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < 81; i++) {
+            h = (h ^ cells[i]) * 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 29;
+        }
+        h ^= h >>> 32;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 29);
+    }
+
+    /** Compare cell k of the form being built with the best so far: false if greater, else keep it. */
+    private boolean keep(int k, int v) {
+        if (k < bestCells) {
+            if (v > best[k]) return false;
+            if (v == best[k]) return true;
+        }
+        best[k] = v;
+        bestCells = k + 1;
+        return true;
+    }
+
+    private void place(int j, int c) {
+        cols[j] = c;
+        posOf[c] = j;
+    }
+
+    private void unplace(int j) {
+        posOf[cols[j]] = -1;
+        cols[j] = -1;
+    }
+
+    private void assign(int s, int stack) {
+        slotStack[s] = stack;
+        stackSlot[stack] = s;
+    }
+
+    private void unassign(int s) {
+        stackSlot[slotStack[s]] = -1;
+        slotStack[s] = -1;
+    }
+
+    /**
+     * The top rows worth trying. A top row with distinct digits reads, at best, each stack's
+     * empty cells then consecutive new labels, stacks with more empty cells first; so it ranks
+     * by its stacks' empty counts, largest first. Also sets distinct. Returns the highest rank.
+     */
+    private int rankTopRows(Board b) {
+        distinct = true;
+        int max = 0;
+        for (int t = 0; t < 2; t++) {
+            for (int r = 0; r < 9; r++) {
+                int seen = 0, z0 = 0, z1 = 0, z2 = 0;
+                for (int c = 0; c < 9; c++) {
+                    int v = b.cell(t == 1 ? TRANSPOSED[r * 9 + c] : r * 9 + c);
+                    if (v == 0) {
+                        if (c < 3) z0++;
+                        else if (c < 6) z1++;
+                        else z2++;
+                    } else if ((seen & 1 << v) != 0) {
+                        distinct = false;
+                    }
+                    seen |= 1 << v;
+                }
+                int hi = Math.max(z0, Math.max(z1, z2)), lo = Math.min(z0, Math.min(z1, z2));
+                int rank = hi * 16 + (z0 + z1 + z2 - hi - lo) * 4 + lo;
+                topRank[t * 9 + r] = rank;
+                max = Math.max(max, rank);
+            }
+        }
+        return max;
+    }
+
+    /** True if row r holds all nine digits. */
+    private boolean isFullRow(int r) {
+        int seen = 0;
+        for (int c = 0; c < 9; c++) seen |= 1 << src[r * 9 + c];
+        return seen == 0x3FE;
+    }
+
+    /** Top row: give stack slot s a stack, its empty columns first (left open). */
+    private void searchStacks(int s, int nextLabel) {
+        if (s == 3) {
+            searchRows(1, nextLabel);
+            return;
+        }
+        int row = slotRow[0] * 9;
+        for (int st = 0; st < 3; st++) {
+            if (stackSlot[st] >= 0) continue;
+            int zeros = 0;
+            for (int c = st * 3; c < st * 3 + 3; c++) if (src[row + c] == 0) zeros++;
+            for (int k = 0; k < zeros; k++) keep(s * 3 + k, 0); // 0 never compares greater
+            assign(s, st);
+            fillSlot(s, s * 3 + zeros, nextLabel);
+            unassign(s);
+        }
+    }
+
+    /** Top row: place the remaining (non-empty) columns of slot s's stack from position j, in every order. */
+    private void fillSlot(int s, int j, int nextLabel) {
+        if (j == s * 3 + 3) {
+            searchStacks(s + 1, nextLabel);
+            return;
+        }
+        int row = slotRow[0] * 9, st = slotStack[s];
+        for (int c = st * 3; c < st * 3 + 3; c++) {
+            int v = src[row + c];
+            if (posOf[c] >= 0 || v == 0) continue;
+            cell(j, c, v, nextLabel, s);
+        }
+    }
+
+    /** fillSlot's step: column c (digit v) at position j of the top row. */
+    private void cell(int j, int c, int v, int nextLabel, int s) {
+        boolean fresh = labels[v] == 0;
+        if (fresh) labels[v] = nextLabel;
+        if (keep(j, labels[v])) {
+            place(j, c);
+            fillSlot(s, j + 1, fresh ? nextLabel + 1 : nextLabel);
+            unplace(j);
+        }
+        if (fresh) labels[v] = 0;
+    }
+
+    /**
+     * Place a row into slot p: the first slot of a band may take a row of any unused band,
+     * the other slots a remaining row of the current band. nextLabel is the next digit label.
+     */
+    private void searchRows(int p, int nextLabel) {
+        if (p == 9) {
+            // every completed order reproduces the best form (cells comparing greater are cut)
+            if (found != null) record();
+            return;
+        }
+        int from, to;
+        if (p % 3 == 0) {
+            from = 0;
+            to = 9;
+        } else {
+            from = slotRow[p - p % 3] / 3 * 3;
+            to = from + 3;
+        }
+        long[] keys = rowKeys[p];
+        long min = Long.MAX_VALUE;
+        for (int r = from; r < to; r++) {
+            keys[r] = Long.MAX_VALUE;
+            if (!isCandidate(p, r)) continue;
+            keys[r] = distinct ? rowKey(r, nextLabel) : 0;
+            min = Math.min(min, keys[r]);
+        }
+        for (int r = from; r < to; r++) {
+            if (keys[r] != min) continue;
+            rowUsed[r] = true;
+            slotRow[p] = r;
+            searchCells(p, 0, nextLabel);
+            rowUsed[r] = false;
+        }
+    }
+
+    private boolean isCandidate(int p, int r) {
+        if (rowUsed[r]) return false;
+        if (p % 3 == 0 && (rowUsed[r / 3 * 3] || rowUsed[r / 3 * 3 + 1] || rowUsed[r / 3 * 3 + 2])) return false;
+        return !(rowEmpty[r] && r % 3 != 0 && rowEmpty[r - 1] && !rowUsed[r - 1]);
+    }
+
+    /**
+     * The smallest reading of row r as the next row, 4 bits per cell, first cell highest.
+     * An open position's stack gives its open positions, in order: the empty columns, then
+     * the labeled digits by label, then the new digits. Assumes the row repeats no digit.
+     */
+    private long rowKey(int r, int nextLabel) {
+        int row = r * 9, fresh = 0;
+        long key = 0;
+        for (int j = 0; j < 9; j++) {
+            int v;
+            if (cols[j] >= 0) {
+                v = src[row + cols[j]];
+                if (v != 0 && labels[v] == 0) {
+                    labels[v] = nextLabel++;
+                    fresh |= 1 << v;
+                }
+                v = v == 0 ? 0 : labels[v];
+            } else {
+                int st = slotStack[j / 3], zeros = 0, known = 0, rank = 0;
+                for (int c = st * 3; c < st * 3 + 3; c++) {
+                    if (posOf[c] >= 0) continue;
+                    int d = src[row + c];
+                    if (d == 0) zeros++;
+                    else if (labels[d] != 0 && (fresh & 1 << d) == 0) known |= 1 << labels[d];
+                }
+                for (int i = j - j % 3; i < j; i++) if (cols[i] < 0) rank++;
+                if (rank < zeros) {
+                    v = 0;
+                } else if (rank - zeros < Integer.bitCount(known)) {
+                    for (int k = rank - zeros; k > 0; k--) known &= known - 1;
+                    v = Integer.numberOfTrailingZeros(known);
+                } else {
+                    v = nextLabel++; // which new digit does not matter here
+                }
+            }
+            key = key << 4 | v;
+        }
+        for (; fresh != 0; fresh &= fresh - 1) labels[Integer.numberOfTrailingZeros(fresh)] = 0;
+        return key;
+    }
+
+    /**
+     * Cells from j of the row in slot p. Fixed columns are read off in a loop. An open position
+     * takes one of its stack's open columns (all empty in the rows so far): an empty one while
+     * the row has empty ones left there, which keeps it open, otherwise each non-empty one in
+     * turn, which fixes it.
+     */
+    private void searchCells(int p, int j, int nextLabel) {
+        int row = slotRow[p] * 9, fresh = 0; // digits labeled here, as bits
+        for (; j < 9 && cols[j] >= 0; j++) {
+            int v = src[row + cols[j]];
+            if (v != 0 && labels[v] == 0) {
+                labels[v] = nextLabel++;
+                fresh |= 1 << v;
+            }
+            if (!keep(p * 9 + j, v == 0 ? 0 : labels[v])) break;
+        }
+        if (j == 9) {
+            searchRows(p + 1, nextLabel);
+        } else if (cols[j] < 0) {
+            searchOpen(p, j, nextLabel);
+        }
+        for (; fresh != 0; fresh &= fresh - 1) labels[Integer.numberOfTrailingZeros(fresh)] = 0;
+    }
+
+    /** searchCells' open position j. */
+    private void searchOpen(int p, int j, int nextLabel) {
+        int row = slotRow[p] * 9, st = slotStack[j / 3], zeros = 0;
+        for (int c = st * 3; c < st * 3 + 3; c++) if (posOf[c] < 0 && src[row + c] == 0) zeros++;
+        for (int i = j - j % 3; i < j; i++) if (cols[i] < 0) zeros--; // taken by the open positions before j
+        if (zeros > 0) {
+            if (keep(p * 9 + j, 0)) searchCells(p, j + 1, nextLabel);
+            return;
+        }
+        for (int c = st * 3; c < st * 3 + 3; c++) {
+            int v = src[row + c];
+            if (posOf[c] >= 0 || v == 0) continue;
+            boolean fresh = labels[v] == 0;
+            if (fresh) labels[v] = nextLabel;
+            if (keep(p * 9 + j, labels[v])) {
+                place(j, c);
+                searchCells(p, j + 1, fresh ? nextLabel + 1 : nextLabel);
+                unplace(j);
+            }
+            if (fresh) labels[v] = 0;
+        }
+    }
+
+    /**
+     * A full top row reads 123456789 under any column order, so no column is fixed by it;
+     * the row placed below it (same band) fixes them all, see {@link #chase}.
+     */
+    private void searchFullTop() {
+        int row = slotRow[0] * 9;
+        for (int j = 0; j < 9; j++) if (!keep(j, j + 1)) return;
+        for (int c = 0; c < 9; c++) topColumn[src[row + c]] = c;
+        int band = slotRow[0] / 3;
+        for (int r = band * 3; r < band * 3 + 3; r++) {
+            if (rowUsed[r]) continue;
+            rowUsed[r] = true;
+            slotRow[1] = r;
+            chase(0);
+            rowUsed[r] = false;
+        }
+    }
+
+    /** Cell j of the second row under a full top row: fix its column if open, in every way allowed. */
+    private void chase(int j) {
+        if (j == 9) {
+            for (int d = 1; d <= 9; d++) labels[d] = posOf[topColumn[d]] + 1;
+            searchRows(2, 10);
+            Arrays.fill(labels, 0);
+            return;
+        }
+        int s = j / 3;
+        if (cols[j] >= 0) {
+            chaseValue(j);
+        } else if (slotStack[s] >= 0) {
+            for (int c = slotStack[s] * 3; c < slotStack[s] * 3 + 3; c++) {
+                if (posOf[c] >= 0) continue;
+                place(j, c);
+                chaseValue(j);
+                unplace(j);
+            }
+        } else {
+            for (int c = 0; c < 9; c++) { // j starts the slot: any column of an open stack
+                if (stackSlot[c / 3] >= 0) continue;
+                assign(s, c / 3);
+                place(j, c);
+                chaseValue(j);
+                unplace(j);
+                unassign(s);
+            }
+        }
+    }
+
+    /**
+     * The value at cell j of the second row is 1 + the position of its digit's top-row column.
+     * If that column is still open it goes to the earliest position it can take: anything
+     * later would make this cell greater.
+     */
+    private void chaseValue(int j) {
+        int v = src[slotRow[1] * 9 + cols[j]];
+        if (v == 0) {
+            if (keep(9 + j, 0)) chase(j + 1);
+            return;
+        }
+        int c = topColumn[v];
+        if (posOf[c] >= 0) {
+            if (keep(9 + j, posOf[c] + 1)) chase(j + 1);
+            return;
+        }
+        int s = stackSlot[c / 3], q;
+        boolean newSlot = s < 0;
+        if (newSlot) {
+            s = slotStack[0] < 0 ? 0 : slotStack[1] < 0 ? 1 : 2;
+            assign(s, c / 3);
+            q = s * 3;
+        } else {
+            q = s * 3;
+            while (cols[q] >= 0) q++;
+        }
+        if (keep(9 + j, q + 1)) {
+            place(q, c);
+            chase(j + 1);
+            unplace(q);
+        }
+        if (newSlot) unassign(s);
+    }
+
+    /** Hand the transform of the completed form to found; open columns (empty ones) in stack order. */
+    private void record() {
+        for (int s = 0; s < 3; s++) {
+            int c = slotStack[s] * 3;
+            for (int j = s * 3; j < s * 3 + 3; j++) {
+                if (cols[j] >= 0) {
+                    order[j] = cols[j];
+                    continue;
+                }
+                while (posOf[c] >= 0) c++;
+                order[j] = c++;
+            }
+        }
+        found.set(transposed, slotRow, order, labels);
+    }
+
+    /**
+     * A Sudoku symmetry: optional transposition, then row and column reordering, then digit
+     * relabeling. Cell (i, j) of the transformed board is digit(cell (row(i), col(j)) of the
+     * possibly transposed source).
+     */
+    public static final class Transform {
+        private boolean transpose;
+        private final int[] rows = new int[9];
+        private final int[] cols = new int[9];
+        private final int[] digits = new int[10];  // digit -> new digit, digits[0] = 0
+        private final int[] inverse = new int[10];
+
+        /** The identity. */
+        public Transform() {
+            for (int k = 0; k < 9; k++) rows[k] = cols[k] = k;
+            for (int d = 0; d < 10; d++) digits[d] = inverse[d] = d;
+        }
+
+        void set(boolean transpose, int[] rows, int[] cols, int[] digits) {
+            this.transpose = transpose;
+            System.arraycopy(rows, 0, this.rows, 0, 9);
+            System.arraycopy(cols, 0, this.cols, 0, 9);
+            System.arraycopy(digits, 0, this.digits, 0, 10);
+        }
+
+        /** Give digits that did not occur in the puzzle the remaining labels, in order. */
+        void completeDigits() {
+            int next = 1;
+            for (int d = 1; d <= 9; d++) next = Math.max(next, digits[d] + 1);
+            for (int d = 1; d <= 9; d++) if (digits[d] == 0) digits[d] = next++;
+            for (int d = 0; d <= 9; d++) inverse[digits[d]] = d;
+        }
+
+        /** Write the transformed src into dst (dst must be a different board). */
+        public void apply(Board src, Board dst) {
+            for (int i = 0; i < 9; i++)
+                for (int j = 0; j < 9; j++) {
+                    int r = rows[i], c = cols[j];
+                    dst.set(i, j, digits[transpose ? src.get(c, r) : src.get(r, c)]);
+                }
+        }
+
+        /** The cell that {@link #apply} moves to cell (both 0..80). */
+        int sourceCell(int cell) {
+            int r = rows[cell / 9], c = cols[cell % 9];
+            return transpose ? c * 9 + r : r * 9 + c;
+        }
+
+        /** The digit that {@link #apply} relabels to digit. */
+        int sourceDigit(int digit) {
+            return inverse[digit];
+        }
+
+        /** Undo the transform: write the board that {@link #apply} maps to src into dst. */
+        public void invert(Board src, Board dst) {
+            for (int i = 0; i < 9; i++)
+                for (int j = 0; j < 9; j++) {
+                    int r = rows[i], c = cols[j], v = inverse[src.get(i, j)];
+                    if (transpose) dst.set(c, r, v);
+                    else dst.set(r, c, v);
+                }
+        }
+    }
+}
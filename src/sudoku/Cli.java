@@ -0,0 +1,65 @@
+package sudoku;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+/**
+ * Command-line solving for short-lived processes. Only the board, solver and rule classes are
+ * loaded: no Swing or AWT, and no lambdas or string concatenation on the normal path, whose
+ * first use costs milliseconds of bootstrapping. Process start to first solution is then
+ * mostly JVM startup; an AppCDS archive of these classes (cds.sh, or gradle cdsArchive)
+ * takes their loading and verification off it too, see {@link StartupBenchmark}.
+ *
+ * Usage: java -cp bin sudoku.Cli <puzzle>...   solve the given puzzles (81 characters each)
+ *        java -cp bin sudoku.Cli -             solve the puzzles on standard input, one per line
+ * Prints one line per puzzle: the solution, or 81 '.' if there is none (then exits with 1).
+ * Input lines shorter than 81 characters or starting with '#' are skipped; such an argument
+ * is a usage error (exit 2, nothing solved).
+ */
+public final class Cli {
+
+    private static final String NO_SOLUTION = ".".repeat(81);
+
+    private Cli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean stdin = args.length == 1 && args[0].equals("-");
+        if (args.length == 0) usage(null);
+        if (!stdin) {
+            for (String puzzle : args) if (puzzle.length() < 81) usage(puzzle);
+        }
+        Solver solver = new Solver();
+        PrintStream out = System.out;
+        boolean allSolved = true;
+        if (stdin) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.length() < 81 || line.startsWith("#")) continue;
+                allSolved &= solve(solver, line, out);
+            }
+        } else {
+            for (String puzzle : args) allSolved &= solve(solver, puzzle, out);
+        }
+        out.flush();
+        if (!allSolved) System.exit(1);
+    }
+
+    private static void usage(String badPuzzle) {
+        if (badPuzzle != null) {
+            System.err.print("Not a puzzle (81 cells expected): ");
+            System.err.println(badPuzzle);
+        }
+        System.err.println("Usage: Cli <puzzle>... | Cli -");
+        System.exit(2);
+    }
+
+    private static boolean solve(Solver solver, String puzzle, PrintStream out) {
+        Board b = Board.fromString(puzzle);
+        boolean solved = Solver.isValidBoard(b) && solver.solve(b);
+        out.println(solved ? b.toLine() : NO_SOLUTION);
+        return solved;
+    }
+}
@@ -0,0 +1,164 @@
+package sudoku;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Headless profiling of a whole puzzle corpus (text or .pzl, see {@link PuzzleChunk}): every
+ * puzzle's givens are validated, its solutions counted up to two, and the uniquely solvable
+ * ones rated with a {@link DifficultyRater}; the results go into {@link CorpusStats}.
+ *
+ * The calling thread streams the file into chunks; a fixed pool of workers, each with its own
+ * checker, rater, board and statistics, takes them from a bounded queue and recycles them
+ * through a bounded free list, so memory stays constant and a slow pool holds back the
+ * reader. Workers share nothing while running; their statistics are merged at the end.
+ * A worker's exception stops the reading and is rethrown from {@link #run}.
+ *
+ * Usage: java -cp bin sudoku.CorpusAnalyzer in.txt [report.txt] [--threads N] [--slowest N]
+ * The report goes to report.txt, or to standard output; the throughput to standard error.
+ */
+public class CorpusAnalyzer {
+
+    private final int threads;
+    private final int slowest;
+
+    /** Analyze with threads workers, keeping the slowest puzzles per report. */
+    public CorpusAnalyzer(int threads, int slowest) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        if (slowest < 0) throw new IllegalArgumentException("slowest must be >= 0");
+        this.threads = threads;
+        this.slowest = slowest;
+    }
+
+    private static final PuzzleChunk END = new PuzzleChunk();
+
+    public CorpusStats run(Path in) throws IOException, InterruptedException {
+        int inFlight = threads * 4;
+        BlockingQueue<PuzzleChunk> free = new ArrayBlockingQueue<>(inFlight);
+        for (int i = 0; i < inFlight; i++) free.add(new PuzzleChunk());
+        BlockingQueue<PuzzleChunk> work = new ArrayBlockingQueue<>(inFlight + threads);
+        CorpusStats[] partial = new CorpusStats[threads];
+        Throwable[] failure = new Throwable[1];
+        Thread reader = Thread.currentThread();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            CorpusStats stats = partial[t] = new CorpusStats(slowest);
+            workers[t] = new Thread(() -> analyzeChunks(work, free, stats, failure, reader), "corpus-worker-" + t);
+            workers[t].setDaemon(true);
+            workers[t].start();
+        }
+        try {
+            PuzzleChunk.read(in, free, work);
+        } catch (InterruptedException e) {
+            if (failure(failure) == null) throw e; // else a worker failed and stopped the reading
+        } finally {
+            for (int t = 0; t < threads; t++) work.add(END); // always room: at most inFlight chunks are queued
+        }
+        CorpusStats total = new CorpusStats(slowest);
+        for (int t = 0; t < threads; t++) {
+            join(workers[t], failure);
+            total.merge(partial[t]);
+        }
+        Throwable e = failure(failure);
+        if (e != null) {
+            Thread.interrupted(); // the failing worker's interrupt, if no wait consumed it
+            throw rethrow(e);
+        }
+        return total;
+    }
+
+    /** Wait for worker; an interrupt from a failing worker does not end the wait. */
+    private static void join(Thread worker, Throwable[] failure) throws InterruptedException {
+        while (true) {
+            try {
+                worker.join();
+                return;
+            } catch (InterruptedException e) {
+                if (failure(failure) == null) throw e;
+            }
+        }
+    }
+
+    /** A worker's failure: unchecked, as its loop throws no checked exception but InterruptedException. */
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof Error) throw (Error) t;
+        throw (RuntimeException) t;
+    }
+
+    private static Throwable failure(Throwable[] failure) {
+        synchronized (failure) {
+            return failure[0];
+        }
+    }
+
+    private static void analyzeChunks(BlockingQueue<PuzzleChunk> work, BlockingQueue<PuzzleChunk> free, CorpusStats stats,
+                                      Throwable[] failure, Thread reader) {
+        try {
+            Solver checker = new Solver(2);
+            DifficultyRater rater = new DifficultyRater();
+            Board board = new Board();
+            for (PuzzleChunk c; (c = work.take()) != END; ) {
+                for (int k = 0; k < c.count; k++) {
+                    for (int i = 0; i < 81; i++) board.setCell(i, c.cells[k * 81 + i]);
+                    analyze(board, c.firstIndex + k, checker, rater, stats);
+                }
+                free.put(c);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) { // Errors too, or run would return partial totals
+            synchronized (failure) {
+                if (failure[0] != null) return;
+                failure[0] = e;
+            }
+            reader.interrupt(); // the chunks this worker held never come back: stop the reading
+        }
+    }
+
+    private static void analyze(Board board, long index, Solver checker, DifficultyRater rater, CorpusStats stats) {
+        if (!Solver.isValidBoard(board)) {
+            stats.recordInvalid(board);
+            return;
+        }
+        long t0 = System.nanoTime();
+        int solutions = checker.countSolutions(board);
+        long nanos = System.nanoTime() - t0;
+        DifficultyRater.Level level = solutions == 1 ? rater.rate(board).level : null;
+        stats.record(board, index, solutions, nanos, checker.getNodes(), level);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: CorpusAnalyzer <in> [report] [--threads N] [--slowest N]");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        int slowest = 10;
+        Path report = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--slowest": slowest = Integer.parseInt(args[++i]); break;
+                default:
+                    if (args[i].startsWith("--") || report != null) throw new IllegalArgumentException("Unknown option " + args[i]);
+                    report = Path.of(args[i]);
+            }
+        }
+        long start = System.nanoTime();
+        CorpusStats stats = new CorpusAnalyzer(threads, slowest).run(Path.of(args[0]));
+        long nanos = System.nanoTime() - start;
+        if (report == null) {
+            System.out.print(stats);
+        } else {
+            try (Writer w = Files.newBufferedWriter(report)) {
+                w.write(stats.toString());
+            }
+        }
+        System.err.printf("%d puzzles, %.2f s, %.0f puzzles/s, %d threads%n", stats.puzzles(), nanos / 1e9,
+                stats.puzzles() * 1e9 / Math.max(1, nanos), threads);
+    }
+}
@@ -0,0 +1,187 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Statistics of a 9x9 puzzle corpus, gathered by {@link CorpusAnalyzer}: clue counts, number of
+ * solutions, effort of the uniqueness check (time and search nodes), difficulty levels of the
+ * uniquely solvable puzzles and the N slowest puzzles: most search nodes, then longest check
+ * (nodes first, as times of single fast puzzles are mostly JIT and GC noise).
+ *
+ * Each worker fills its own instance without synchronization and {@link #merge} adds one into
+ * another, so the totals do not depend on how the corpus was split. The size is fixed (the
+ * histograms have fixed buckets and only N slow puzzles are kept), whatever the corpus size.
+ */
+public class CorpusStats {
+
+    /** One of the slowest puzzles. */
+    public static final class Slow {
+        /** 0-based index in the corpus. */
+        public final long index;
+        public final long nanos;
+        public final long nodes;
+        public final String puzzle;
+
+        Slow(long index, long nanos, long nodes, String puzzle) {
+            this.index = index;
+            this.nanos = nanos;
+            this.nodes = nodes;
+            this.puzzle = puzzle;
+        }
+    }
+
+    private static final DifficultyRater.Level[] LEVELS = DifficultyRater.Level.values();
+
+    private final int slowestKept;
+    private long puzzles, invalid, unsolvable, unique, multiple;
+    private final long[] clues = new long[82];
+    private final long[] levels = new long[LEVELS.length];
+    private final LatencyHistogram nanos = new LatencyHistogram();
+    private final LatencyHistogram nodes = new LatencyHistogram();
+    private final PriorityQueue<Slow> slowest; // fastest of the kept ones first
+
+    private static int compare(Slow a, Slow b) {
+        return a.nodes != b.nodes ? Long.compare(a.nodes, b.nodes) : Long.compare(a.nanos, b.nanos);
+    }
+
+    /** Keep the slowestKept slowest puzzles. */
+    public CorpusStats(int slowestKept) {
+        if (slowestKept < 0) throw new IllegalArgumentException("slowestKept must be >= 0");
+        this.slowestKept = slowestKept;
+        slowest = new PriorityQueue<>(slowestKept + 1, CorpusStats::compare);
+    }
+
+    /** A puzzle with conflicting givens (not checked or rated). */
+    public void recordInvalid(Board puzzle) {
+        puzzles++;
+        invalid++;
+        clues[clueCount(puzzle)]++;
+    }
+
+    /**
+     * A checked puzzle: solutions found (counting stops at 2), the check's time and search
+     * nodes, and its level if it has a unique solution (null otherwise).
+     */
+    public void record(Board puzzle, long index, int solutions, long checkNanos, long checkNodes,
+                       DifficultyRater.Level level) {
+        puzzles++;
+        clues[clueCount(puzzle)]++;
+        if (solutions == 0) unsolvable++;
+        else if (solutions == 1) unique++;
+        else multiple++;
+        if (level != null) levels[level.ordinal()]++;
+        nanos.record(checkNanos);
+        nodes.record(checkNodes);
+        if (slowestKept == 0) return;
+        Slow head = slowest.peek();
+        if (slowest.size() < slowestKept || checkNodes > head.nodes || checkNodes == head.nodes && checkNanos > head.nanos) {
+            keep(new Slow(index, checkNanos, checkNodes, puzzle.toLine()));
+        }
+    }
+
+    /** Add other's statistics to these (other is unchanged). */
+    public void merge(CorpusStats other) {
+        puzzles += other.puzzles;
+        invalid += other.invalid;
+        unsolvable += other.unsolvable;
+        unique += other.unique;
+        multiple += other.multiple;
+        for (int k = 0; k < clues.length; k++) clues[k] += other.clues[k];
+        for (int k = 0; k < levels.length; k++) levels[k] += other.levels[k];
+        nanos.add(other.nanos);
+        nodes.add(other.nodes);
+        for (Slow s : other.slowest) if (slowestKept > 0) keep(s);
+    }
+
+    private void keep(Slow s) {
+        slowest.add(s);
+        if (slowest.size() > slowestKept) slowest.poll();
+    }
+
+    private static int clueCount(Board b) {
+        int n = 0;
+        for (int i = 0; i < 81; i++) if (b.cell(i) != 0) n++;
+        return n;
+    }
+
+    public long puzzles() {
+        return puzzles;
+    }
+
+    /** Puzzles with conflicting givens. */
+    public long invalid() {
+        return invalid;
+    }
+
+    public long unsolvable() {
+        return unsolvable;
+    }
+
+    public long unique() {
+        return unique;
+    }
+
+    /** Puzzles with more than one solution. */
+    public long multiple() {
+        return multiple;
+    }
+
+    /** Puzzles with the given number of clues. */
+    public long withClues(int clueCount) {
+        return clueCount < 0 || clueCount >= clues.length ? 0 : clues[clueCount];
+    }
+
+    /** Uniquely solvable puzzles rated at level. */
+    public long withLevel(DifficultyRater.Level level) {
+        return levels[level.ordinal()];
+    }
+
+    /** Time of the uniqueness checks, in nanoseconds. */
+    public LatencyHistogram checkNanos() {
+        return nanos;
+    }
+
+    /** Search nodes of the uniqueness checks. */
+    public LatencyHistogram checkNodes() {
+        return nodes;
+    }
+
+    /** The kept slowest puzzles, slowest first. */
+    public List<Slow> slowest() {
+        List<Slow> list = new ArrayList<>(slowest);
+        list.sort((a, b) -> compare(b, a));
+        return list;
+    }
+
+    /** The report: one line per statistic, then the slowest puzzles. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("puzzles %d: unique %d, multiple %d, unsolvable %d, invalid %d%n",
+                puzzles, unique, multiple, unsolvable, invalid));
+        long clueSum = 0;
+        int min = -1, max = -1;
+        StringBuilder hist = new StringBuilder();
+        for (int k = 0; k < clues.length; k++) {
+            if (clues[k] == 0) continue;
+            if (min < 0) min = k;
+            max = k;
+            clueSum += k * clues[k];
+            hist.append(' ').append(k).append(':').append(clues[k]);
+        }
+        sb.append(String.format("clues min %d mean %.1f max %d |%s%n", Math.max(min, 0),
+                puzzles == 0 ? 0 : (double) clueSum / puzzles, Math.max(max, 0), hist));
+        sb.append("levels");
+        for (DifficultyRater.Level level : LEVELS) {
+            sb.append(String.format(" %s %d (%.1f%%)", level, levels[level.ordinal()],
+                    unique == 0 ? 0 : 100.0 * levels[level.ordinal()] / unique));
+        }
+        sb.append(String.format("%ncheck ns %s%ncheck nodes %s%n", nanos, nodes));
+        for (Slow s : slowest()) {
+            sb.append(String.format("slow #%d %.3f ms %d nodes %s%n", s.index, s.nanos / 1e6, s.nodes, s.puzzle));
+        }
+        return sb.toString();
+    }
+}
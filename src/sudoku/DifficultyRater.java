@@ -0,0 +1,110 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Rates puzzles by how a human would solve them: techniques are tried from easiest to hardest
+ * and after every step that makes progress the rater starts again from the easiest, so a
+ * technique is only used when nothing simpler applies. The rating is the hardest technique
+ * needed (scored roughly on the Sudoku Explainer scale) and the number of steps; puzzles the
+ * techniques cannot finish need guessing and rate {@link Level#EXPERT}.
+ *
+ * Instances keep their workspace and are not thread-safe.
+ */
+public class DifficultyRater {
+
+    /** Coarse difficulty bands, from the hardest technique needed. */
+    public enum Level {
+        /** Singles only. */
+        EASY,
+        /** Up to locked candidates, pairs and X-Wing. */
+        MEDIUM,
+        /** Up to triples, Swordfish and XY-Wing. */
+        HARD,
+        /** The techniques are not enough: needs guessing. */
+        EXPERT;
+
+        /** EASY, MEDIUM or HARD by (case-insensitive) name, anything else EXPERT. */
+        public static Level of(String name) {
+            switch (name == null ? "" : name.toLowerCase()) {
+                case "easy": return EASY;
+                case "medium": return MEDIUM;
+                case "hard": return HARD;
+                default: return EXPERT;
+            }
+        }
+    }
+
+    private static final Rule[] TECHNIQUES = {
+            Rules.HIDDEN_SINGLES, Rules.NAKED_SINGLES, Rules.LOCKED_CANDIDATES, Rules.NAKED_PAIRS, Rules.X_WING,
+            Rules.HIDDEN_PAIRS, Rules.NAKED_TRIPLES, Rules.SWORDFISH, Rules.HIDDEN_TRIPLES, Rules.XY_WING};
+    private static final double[] SCORES = {1.5, 2.3, 2.6, 3.0, 3.2, 3.4, 3.6, 3.8, 4.0, 4.2};
+    private static final Level[] LEVELS = {
+            Level.EASY, Level.EASY, Level.MEDIUM, Level.MEDIUM, Level.MEDIUM,
+            Level.MEDIUM, Level.HARD, Level.HARD, Level.HARD, Level.HARD};
+
+    private CandidateGrid grid = new CandidateGrid();
+    private final int[] uses = new int[TECHNIQUES.length];
+
+    /** Result of rating one puzzle. */
+    public static final class Rating {
+        public final Level level;
+        /** Score of the hardest technique used (0 if none was needed). */
+        public final double score;
+        /** Name of the hardest technique used, "guessing" for EXPERT, null if none was needed. */
+        public final String hardest;
+        /** Technique applications that made progress. */
+        public final int steps;
+        /** False when the techniques got stuck or the puzzle has conflicting givens. */
+        public final boolean solved;
+
+        Rating(Level level, double score, String hardest, int steps, boolean solved) {
+            this.level = level;
+            this.score = score;
+            this.hardest = hardest;
+            this.steps = steps;
+            this.solved = solved;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%.1f, %s, %d steps)", level, score, hardest, steps);
+        }
+    }
+
+    /** Names of the techniques, easiest first. */
+    public static String[] techniques() {
+        String[] names = new String[TECHNIQUES.length];
+        for (int k = 0; k < names.length; k++) names[k] = TECHNIQUES[k].name();
+        return names;
+    }
+
+    public Rating rate(Board board) {
+        Arrays.fill(uses, 0);
+        if (!Solver.isValidBoard(board)) return new Rating(Level.EXPERT, 0, "conflicting givens", 0, false);
+        if (board.boxOrder() != grid.order()) grid = new CandidateGrid(board.boxOrder());
+        grid.load(board);
+        int hardest = -1, steps = 0;
+        next:
+        while (grid.filled() < grid.cells()) {
+            for (int k = 0; k < TECHNIQUES.length; k++) {
+                int changed = TECHNIQUES[k].apply(grid);
+                if (changed == Rule.CONTRADICTION) return new Rating(Level.EXPERT, 0, "no solution", steps, false);
+                if (changed > 0) {
+                    uses[k]++;
+                    steps++;
+                    hardest = Math.max(hardest, k);
+                    continue next;
+                }
+            }
+            return new Rating(Level.EXPERT, hardest < 0 ? 0 : SCORES[hardest], "guessing", steps, false);
+        }
+        if (hardest < 0) return new Rating(Level.EASY, 0, null, 0, true);
+        return new Rating(LEVELS[hardest], SCORES[hardest], TECHNIQUES[hardest].name(), steps, true);
+    }
+
+    /** Times each technique (same order as {@link #techniques()}) made progress in the last rating. */
+    public int[] getUses() {
+        return uses.clone();
+    }
+}
@@ -0,0 +1,224 @@
+package sudoku;
+
+/**
+ * Sudoku as an exact-cover problem solved with Knuth's Algorithm X on dancing links.
+ * There are 324 constraint columns (cell, row-digit, col-digit, box-digit) and
+ * 729 candidate rows of 4 nodes each. All links live in preallocated int arrays
+ * that are built once; givens are covered before the search and uncovered after it,
+ * so the matrix is back in its initial state when a call returns. Classic 9x9 boards only.
+ */
+public class DlxSolver implements SolverEngine {
+
+    private static final int COLUMNS = 324;
+    private static final int ROWS = 729;
+    private static final int FIRST_NODE = COLUMNS + 1; // node 0 is the root, 1..324 the column headers
+    private static final int NODES = FIRST_NODE + ROWS * 4;
+
+    private final int[] left = new int[NODES];
+    private final int[] right = new int[NODES];
+    private final int[] up = new int[NODES];
+    private final int[] down = new int[NODES];
+    private final int[] column = new int[NODES];
+    private final int[] size = new int[COLUMNS + 1];
+    private final boolean[] covered = new boolean[COLUMNS + 1];
+
+    private final int[] givenRows = new int[81];
+    private final int[] chosen = new int[81];
+    private final int[] solution = new int[81];
+    private int solutionsFound;
+    private int nodes, backtracks, guesses, maxDepth;
+    private SolverMetrics metrics; // null unless recording
+    private SolveListener listener; // null unless watched
+    private int stopAt;
+    private int nextCheck = Integer.MAX_VALUE; // node count at which to poll token
+    private CancellationToken token; // set during solve(Board, CancellationToken)
+    private boolean stopped; // the token stopped the last search
+    private final int solutionLimit; // if <=0 then no limit
+
+    public DlxSolver() {
+        this(0);
+    }
+
+    public DlxSolver(int solutionLimit) {
+        this.solutionLimit = solutionLimit;
+        for (int h = 0; h <= COLUMNS; h++) {
+            left[h] = h == 0 ? COLUMNS : h - 1;
+            right[h] = h == COLUMNS ? 0 : h + 1;
+            up[h] = down[h] = column[h] = h;
+        }
+        for (int row = 0; row < ROWS; row++) {
+            int cell = row / 9, r = cell / 9, c = cell % 9, d = row % 9;
+            int b = (r / 3) * 3 + c / 3;
+            int first = FIRST_NODE + row * 4;
+            int[] cols = {1 + cell, 1 + 81 + r * 9 + d, 1 + 162 + c * 9 + d, 1 + 243 + b * 9 + d};
+            for (int k = 0; k < 4; k++) {
+                int n = first + k, h = cols[k];
+                left[n] = first + (k + 3) % 4;
+                right[n] = first + (k + 1) % 4;
+                column[n] = h;
+                up[n] = up[h];
+                down[n] = h;
+                down[up[h]] = n;
+                up[h] = n;
+                size[h]++;
+            }
+        }
+    }
+
+    @Override
+    public boolean solve(Board board) {
+        if (run(board, 1) == 0) return false;
+        storeSolution(board);
+        return true;
+    }
+
+    @Override
+    public SolveResult solve(Board board, CancellationToken token) {
+        long t0 = System.nanoTime();
+        this.token = token;
+        nextCheck = 0; // poll on the first node
+        int found;
+        try {
+            found = run(board, 1);
+        } finally {
+            this.token = null;
+            nextCheck = Integer.MAX_VALUE;
+        }
+        SolveResult.Status status = stopped ? token.stopStatus()
+                : found > 0 ? SolveResult.Status.SOLVED : SolveResult.Status.UNSOLVABLE;
+        if (status == SolveResult.Status.SOLVED) storeSolution(board);
+        return new SolveResult(status, nodes, backtracks, guesses, maxDepth, System.nanoTime() - t0);
+    }
+
+    private void storeSolution(Board board) {
+        for (int k = 0; k < 81; k++) {
+            if (board.cell(k) != 0) continue;
+            int row = (solution[k] - FIRST_NODE) / 4;
+            board.set(row / 81, (row / 9) % 9, row % 9 + 1);
+        }
+    }
+
+    @Override
+    public int countSolutions(Board board) {
+        return run(board, solutionLimit);
+    }
+
+    @Override
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setListener(SolveListener listener) {
+        this.listener = listener;
+    }
+
+    private int run(Board board, int limit) {
+        if (board.size() != 9) throw new IllegalArgumentException("Dancing Links supports 9x9 boards only");
+        long t0 = metrics != null ? System.nanoTime() : 0;
+        solutionsFound = 0;
+        nodes = backtracks = guesses = maxDepth = 0;
+        stopped = false;
+        stopAt = limit;
+        int givens = 0;
+        boolean consistent = true;
+        for (int i = 0; i < 81; i++) {
+            int v = board.cell(i);
+            if (v == 0) continue;
+            int node = FIRST_NODE + (i * 9 + v - 1) * 4;
+            for (int k = 0; k < 4; k++) if (covered[column[node + k]]) consistent = false;
+            if (!consistent) break;
+            select(node);
+            givenRows[givens++] = node;
+        }
+        if (consistent) search(0);
+        while (givens > 0) unselect(givenRows[--givens]);
+        if (metrics != null) {
+            metrics.record("Dancing Links", board, solutionsFound > 0, System.nanoTime() - t0, 0,
+                    nodes, backtracks, guesses, maxDepth);
+        }
+        return solutionsFound;
+    }
+
+    /** Returns true once the solution limit is reached or the token stops the search. */
+    private boolean search(int depth) {
+        if (++nodes > nextCheck && checkpoint()) return true;
+        if (depth > maxDepth) maxDepth = depth;
+        if (right[0] == 0) {
+            if (solutionsFound++ == 0) {
+                // index the chosen rows by cell so solve() can read them back
+                for (int k = 0; k < depth; k++) solution[(chosen[k] - FIRST_NODE) / 36] = chosen[k];
+            }
+            return stopAt > 0 && solutionsFound >= stopAt;
+        }
+        int c = right[0];
+        for (int h = right[c]; h != 0; h = right[h]) {
+            if (size[h] < size[c]) c = h;
+        }
+        if (size[c] == 0) {
+            backtracks++;
+            return false;
+        }
+        boolean guess = size[c] > 1;
+
+        cover(c);
+        boolean stop = false;
+        for (int r = down[c]; r != c && !stop; r = down[r]) {
+            if (guess) guesses++;
+            chosen[depth] = r;
+            // a row is (cell, digit): 9 rows of 4 nodes per cell
+            if (listener != null) listener.placed((r - FIRST_NODE) / 36, (r - FIRST_NODE) / 4 % 9 + 1, guess);
+            for (int j = right[r]; j != r; j = right[j]) cover(column[j]);
+            stop = search(depth + 1);
+            for (int j = left[r]; j != r; j = left[j]) uncover(column[j]);
+            if (listener != null && !stop) listener.cleared((r - FIRST_NODE) / 36); // keep the found solution
+        }
+        uncover(c);
+        return stop;
+    }
+
+    private boolean checkpoint() {
+        if (token.shouldStop()) {
+            stopped = true;
+            return true;
+        }
+        nextCheck = nodes + CancellationToken.CHECK_INTERVAL;
+        return false;
+    }
+
+    private void select(int node) {
+        cover(column[node]);
+        for (int j = right[node]; j != node; j = right[j]) cover(column[j]);
+    }
+
+    private void unselect(int node) {
+        for (int j = left[node]; j != node; j = left[j]) uncover(column[j]);
+        uncover(column[node]);
+    }
+
+    private void cover(int c) {
+        covered[c] = true;
+        left[right[c]] = left[c];
+        right[left[c]] = right[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+        covered[c] = false;
+    }
+}
@@ -0,0 +1,30 @@
+package sudoku;
+
+/** The available solving engines, so callers can pick one without knowing the classes. */
+public enum Engine {
+    /** {@link Solver}: MRV backtracking with constraint propagation. */
+    BACKTRACKING("Backtracking"),
+    /** {@link IterativeSolver}: the same search on an explicit stack, resumable. */
+    ITERATIVE("Iterative backtracking"),
+    /** {@link DlxSolver}: Knuth's Algorithm X on dancing links. */
+    DANCING_LINKS("Dancing Links");
+
+    private final String label;
+
+    Engine(String label) {
+        this.label = label;
+    }
+
+    public SolverEngine create(int solutionLimit) {
+        switch (this) {
+            case DANCING_LINKS: return new DlxSolver(solutionLimit);
+            case ITERATIVE: return new IterativeSolver(solutionLimit);
+            default: return new Solver(solutionLimit);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
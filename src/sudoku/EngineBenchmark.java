@@ -0,0 +1,44 @@
+package sudoku;
+
+/**
+ * Side-by-side timing of the solving engines on the bundled samples.
+ * Usage: java -cp bin sudoku.EngineBenchmark [iterations]
+ */
+public class EngineBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        String[] names = {"easy", "medium", "hard"};
+        Board[] samples = {BoardSamples.sampleEasy(), BoardSamples.sampleMedium(), BoardSamples.sampleHard()};
+        Engine[] engines = Engine.values();
+
+        System.out.printf("%-8s %-8s", "sample", "op");
+        for (Engine e : engines) System.out.printf(" %16s", e + " us");
+        System.out.printf("  %s%n", "winner");
+        for (int s = 0; s < samples.length; s++) {
+            for (String op : new String[]{"solve", "count2"}) {
+                double[] micros = new double[engines.length];
+                int best = 0;
+                for (int k = 0; k < engines.length; k++) {
+                    SolverEngine engine = engines[k].create(2);
+                    run(engine, samples[s], op, iterations); // warm up
+                    long t0 = System.nanoTime();
+                    run(engine, samples[s], op, iterations);
+                    micros[k] = (System.nanoTime() - t0) / 1e3 / iterations;
+                    if (micros[k] < micros[best]) best = k;
+                }
+                System.out.printf("%-8s %-8s", names[s], op);
+                for (double m : micros) System.out.printf(" %16.1f", m);
+                System.out.printf("  %s%n", engines[best]);
+            }
+        }
+    }
+
+    private static void run(SolverEngine engine, Board sample, String op, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            Board b = sample.copy();
+            if (op.equals("solve")) engine.solve(b);
+            else engine.countSolutions(b);
+        }
+    }
+}
@@ -5,23 +5,33 @@ import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
- * Simple Swing GUI: 9x9 grid of JTextFields, buttons: Solve | Clear | Generate | Check
- * Also provides step-by-step visualization toggle.
+ * Simple Swing GUI: 9x9 grid of JTextFields, buttons: Solve | Cancel | Clear | Generate | Check
+ * Also provides step-by-step visualization toggle: the search's events are replayed into the
+ * grid at a fixed frame rate, at the speed set by the slider.
+ * Every edit goes straight into a {@link BoardModel}, so conflicting cells are highlighted and
+ * the focused cell's candidates shown as you type, without rescanning the board.
  */
 public class GUIController extends JFrame {
 
     private final JTextField[][] cells = new JTextField[9][9];
-    private final Board board = new Board();
-    private final Solver solver = new Solver();
-    private final Generator generator = new Generator();
+    private final BoardModel model = new BoardModel();
+    private final JLabel status = new JLabel(" ");
+    private int focusR = -1, focusC = -1;
 
     private final JButton solveBtn = new JButton("Solve");
+    private final JButton cancelBtn = new JButton("Cancel");
     private final JButton clearBtn = new JButton("Clear");
     private final JButton genBtn = new JButton("Generate (Medium)");
     private final JButton checkBtn = new JButton("Check");
     private final JCheckBox visualize = new JCheckBox("Visualize Step-by-step");
+    private final JSlider speed = new JSlider(0, 20, 6); // 2^value solver events per frame
+    private final JComboBox<Engine> engineBox = new JComboBox<>(Engine.values());
+    private CancellationToken solveToken; // of the running solve, if any
+    private Playback playback; // of the running visualized solve, if any
 
     public GUIController() {
         setTitle("Sudoku Solver & Generator");
@@ -32,10 +42,15 @@ public class GUIController extends JFrame {
 
         JPanel top = new JPanel(new FlowLayout(FlowLayout.CENTER, 10,10));
         top.add(solveBtn);
+        top.add(cancelBtn);
         top.add(clearBtn);
         top.add(genBtn);
         top.add(checkBtn);
         top.add(visualize);
+        top.add(new JLabel("Speed"));
+        speed.setToolTipText("Solver steps shown per frame");
+        top.add(speed);
+        top.add(engineBox);
         add(top, BorderLayout.NORTH);
 
         JPanel gridPanel = new JPanel(new GridLayout(3,3,4,4));
@@ -54,10 +69,17 @@ public class GUIController extends JFrame {
                         tf.setFont(new Font(Font.MONOSPACED, Font.BOLD, 22));
                         tf.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
                         tf.setDocument(new Util.IntDocument(1));
+                        tf.getDocument().addDocumentListener(new DocumentListener() {
+                            @Override public void insertUpdate(DocumentEvent e) { cellEdited(rr, cc); }
+                            @Override public void removeUpdate(DocumentEvent e) { cellEdited(rr, cc); }
+                            @Override public void changedUpdate(DocumentEvent e) { }
+                        });
                         tf.addFocusListener(new FocusAdapter() {
                             @Override
-                            public void focusLost(FocusEvent e) {
-                                syncFromUI();
+                            public void focusGained(FocusEvent e) {
+                                focusR = rr;
+                                focusC = cc;
+                                updateStatus();
                             }
                         });
                         cells[rr][cc] = tf;
@@ -69,9 +91,17 @@ public class GUIController extends JFrame {
         }
 
         add(gridPanel, BorderLayout.CENTER);
+        status.setBorder(BorderFactory.createEmptyBorder(0, 12, 8, 12));
+        add(status, BorderLayout.SOUTH);
+        model.addListener(this::refreshUnits);
 
         // Hook buttons
         solveBtn.addActionListener(e -> onSolve());
+        cancelBtn.addActionListener(e -> {
+            if (solveToken != null) solveToken.cancel();
+            if (playback != null) playback.skip();
+        });
+        cancelBtn.setEnabled(false);
         clearBtn.addActionListener(e -> onClear());
         genBtn.addActionListener(e -> onGenerate());
         checkBtn.addActionListener(e -> onCheck());
@@ -82,27 +112,56 @@ public class GUIController extends JFrame {
         setResizable(false);
     }
 
-    private void syncFromUI() {
-        for (int r=0;r<9;r++) for (int c=0;c<9;c++) {
-            String s = cells[r][c].getText().trim();
-            if (s.isEmpty()) board.set(r,c,0);
-            else {
-                try {
-                    int v = Integer.parseInt(s);
-                    if (v<1 || v>9) {
-                        cells[r][c].setText("");
-                        board.set(r,c,0);
-                    } else {
-                        board.set(r,c,v);
-                    }
-                } catch (NumberFormatException ex) {
-                    cells[r][c].setText("");
-                    board.set(r,c,0);
-                }
+    /** Create and show the window on the event dispatch thread. */
+    public static void launch() {
+        SwingUtilities.invokeLater(() -> new GUIController().setVisible(true));
+    }
+
+    /** Document listener: one field changed, so one model update. */
+    private void cellEdited(int r, int c) {
+        if (playback != null) return; // replaying the search, not user edits
+        String s = cells[r][c].getText();
+        char ch = s.isEmpty() ? '0' : s.charAt(0);
+        if (s.length() > 1 || ch < '0' || ch > '9') { // IntDocument lets other scripts' digits through
+            model.set(r, c, 0);
+            // the document is locked during its notification: clear the field afterwards
+            SwingUtilities.invokeLater(() -> cells[r][c].setText(""));
+            return;
+        }
+        model.set(r, c, ch - '0');
+    }
+
+    private static final Color CONFLICT = new Color(255, 190, 190);
+
+    /** Re-color the row, column and box of (r, c): the only cells whose conflict state can change. */
+    private void refreshUnits(int r, int c) {
+        int br = r / 3 * 3, bc = c / 3 * 3;
+        for (int k = 0; k < 9; k++) {
+            paint(r, k);
+            paint(k, c);
+            paint(br + k / 3, bc + k % 3);
+        }
+        updateStatus();
+    }
+
+    private void paint(int r, int c) {
+        Color bg = model.isConflict(r, c) ? CONFLICT : Color.WHITE;
+        if (!bg.equals(cells[r][c].getBackground())) cells[r][c].setBackground(bg);
+    }
+
+    private void updateStatus() {
+        StringBuilder sb = new StringBuilder();
+        if (focusR >= 0 && model.get(focusR, focusC) == 0) {
+            sb.append("Candidates r").append(focusR + 1).append('c').append(focusC + 1).append(':');
+            for (int m = model.candidates(focusR, focusC); m != 0; m &= m - 1) {
+                sb.append(' ').append(Integer.numberOfTrailingZeros(m) + 1);
             }
         }
+        if (!model.isValid()) sb.append(sb.length() > 0 ? "   " : "").append("Conflicting numbers");
+        status.setText(sb.length() == 0 ? " " : sb.toString());
     }
 
+    /** Show b; the fields' document listeners carry the values into the model. */
     private void renderToUI(Board b) {
         for (int r=0;r<9;r++) for (int c=0;c<9;c++) {
             int v = b.get(r,c);
@@ -111,71 +170,185 @@ public class GUIController extends JFrame {
     }
 
     private void onSolve() {
-        syncFromUI();
-        if (!Solver.isValidBoard(board)) {
+        if (!model.isValid()) {
             JOptionPane.showMessageDialog(this, "Board appears invalid (conflicting numbers).", "Invalid", JOptionPane.WARNING_MESSAGE);
             return;
         }
+        SolverEngine solver = selectedEngine().create(0);
+        Board puzzle = model.toBoard(); // snapshot on the Swing thread
+        Board copy = puzzle.copy();
+        CancellationToken token = new CancellationToken();
+        Playback pb = visualize.isSelected() ? new Playback(puzzle) : null;
+        if (pb != null) solver.setListener(pb.events);
+        solveToken = token;
+        playback = pb;
         solveBtn.setEnabled(false);
         genBtn.setEnabled(false);
-        SwingWorker<Boolean, Board> worker = new SwingWorker<>() {
+        cancelBtn.setEnabled(true);
+        SwingWorker<SolveResult, Void> worker = new SwingWorker<>() {
             @Override
-            protected Boolean doInBackground() {
-                Board copy = board.copy();
-                boolean ok = solver.solve(copy);
-                if (ok) publish(copy);
-                return ok;
-            }
-            @Override
-            protected void process(java.util.List<Board> chunks) {
-                if (!chunks.isEmpty()) renderToUI(chunks.get(chunks.size()-1));
+            protected SolveResult doInBackground() {
+                return solver.solve(copy, token);
             }
             @Override
             protected void done() {
+                SolveResult result = null;
                 try {
-                    boolean ok = get();
-                    if (!ok) JOptionPane.showMessageDialog(GUIController.this, "No solution found.", "Result", JOptionPane.INFORMATION_MESSAGE);
+                    result = get();
                 } catch (Exception ex) {
                     ex.printStackTrace();
                     JOptionPane.showMessageDialog(GUIController.this, "Error during solving: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                } finally {
-                    solveBtn.setEnabled(true);
-                    genBtn.setEnabled(true);
+                }
+                solveToken = null;
+                if (pb != null && result != null && result.isComplete()) {
+                    pb.finishWith(result, copy); // let the replay catch up first
+                } else {
+                    if (pb != null) pb.stop();
+                    showResult(result, copy);
                 }
             }
         };
         worker.execute();
+        if (pb != null) pb.start();
+    }
+
+    private void showResult(SolveResult result, Board solution) {
+        playback = null;
+        cancelBtn.setEnabled(false);
+        solveBtn.setEnabled(true);
+        genBtn.setEnabled(true);
+        if (result == null) return;
+        if (result.isSolved()) {
+            renderToUI(solution);
+        } else if (result.status == SolveResult.Status.UNSOLVABLE) {
+            JOptionPane.showMessageDialog(this, "No solution found.", "Result", JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(this, "Solving cancelled after " + result.nodes + " nodes.", "Result", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    private static final int FPS = 30;
+    private static final Color DEDUCED = new Color(0, 90, 200);
+    private static final Color GUESSED = new Color(220, 110, 0);
+
+    /**
+     * Replays a search into the fields: a Swing timer takes up to 2^speed events per frame from
+     * the solver's {@link SolveEventBuffer}, applies them to its own copy of the cells and then
+     * repaints only the cells that changed, once each however many events touched them.
+     * The solver never waits on the Swing thread, only for room in the buffer.
+     */
+    private final class Playback {
+        final SolveEventBuffer events = new SolveEventBuffer(1 << 16);
+        final Board puzzle;
+        final int[] value = new int[81];
+        final boolean[] guessed = new boolean[81];
+        final boolean[] dirty = new boolean[81];
+        final int[] dirtyCells = new int[81];
+        int dirtyCount;
+        final int[] batch = new int[4096];
+        final Timer timer = new Timer(1000 / FPS, e -> frame());
+        SolveResult result;
+        Board solution;
+
+        Playback(Board puzzle) {
+            this.puzzle = puzzle;
+            for (int i = 0; i < 81; i++) value[i] = puzzle.cell(i);
+        }
+
+        void start() {
+            timer.start();
+        }
+
+        /** The search is done: keep replaying until the buffer is empty, then show the result. */
+        void finishWith(SolveResult result, Board solution) {
+            this.result = result;
+            this.solution = solution;
+            events.close();
+        }
+
+        /** Cancel: stop replaying. A finished search is shown right away. */
+        void skip() {
+            events.close();
+            if (result != null) end();
+        }
+
+        /** Stop and put the puzzle back. */
+        void stop() {
+            events.close();
+            timer.stop();
+            playback = null;
+            renderToUI(puzzle);
+            resetColors();
+        }
+
+        private void frame() {
+            for (int budget = 1 << speed.getValue(); budget > 0; ) {
+                int n = events.drain(batch, Math.min(budget, batch.length));
+                if (n == 0) break;
+                budget -= n;
+                for (int k = 0; k < n; k++) apply(batch[k]);
+            }
+            for (int k = 0; k < dirtyCount; k++) {
+                int i = dirtyCells[k];
+                dirty[i] = false;
+                JTextField tf = cells[i / 9][i % 9];
+                tf.setText(value[i] == 0 ? "" : Integer.toString(value[i]));
+                tf.setForeground(guessed[i] ? GUESSED : DEDUCED);
+            }
+            dirtyCount = 0;
+            if (result != null && events.isEmpty()) end();
+        }
+
+        private void apply(int event) {
+            int i = SolveEventBuffer.cell(event);
+            int type = SolveEventBuffer.type(event);
+            value[i] = type == SolveEventBuffer.CLEAR ? 0 : SolveEventBuffer.digit(event);
+            guessed[i] = type == SolveEventBuffer.GUESS;
+            if (!dirty[i]) {
+                dirty[i] = true;
+                dirtyCells[dirtyCount++] = i;
+            }
+        }
+
+        private void end() {
+            timer.stop();
+            playback = null;
+            renderToUI(puzzle); // undo the replay; a solution is rendered on top
+            resetColors();
+            showResult(result, solution);
+        }
+    }
+
+    private void resetColors() {
+        for (int r = 0; r < 9; r++) for (int c = 0; c < 9; c++) cells[r][c].setForeground(Color.BLACK);
     }
 
     private void onClear() {
-        board.clearAll();
-        renderToUI(board);
+        renderToUI(new Board());
     }
 
     private void onGenerate() {
-        int blanks = Generator.difficultyToBlanks("medium");
-        String[] options = {"Easy", "Medium", "Hard"};
+        String[] options = {"Easy", "Medium", "Hard", "Expert"};
         String sel = (String) JOptionPane.showInputDialog(this, "Select difficulty:", "Generate", JOptionPane.QUESTION_MESSAGE, null, options, options[1]);
-        if (sel != null) {
-            blanks = Generator.difficultyToBlanks(sel.toLowerCase());
-        } else return;
+        if (sel == null) return;
+        DifficultyRater.Level level = DifficultyRater.Level.of(sel);
+        int blanks = Generator.difficultyToBlanks(sel.toLowerCase());
+        Generator generator = new Generator(selectedEngine());
 
         solveBtn.setEnabled(false);
         genBtn.setEnabled(false);
         SwingWorker<Board, Void> worker = new SwingWorker<>() {
             @Override
             protected Board doInBackground() {
-                Board b = generator.generate(blanks);
-                return b;
+                // target the rating; fall back to the blank count if no grid gave that level
+                Board b = generator.generate(level, 200);
+                return b != null ? b : generator.generate(blanks);
             }
             @Override
             protected void done() {
                 try {
                     Board b = get();
-                    board.clearAll();
-                    // copy values
-                    for (int r=0;r<9;r++) for (int c=0;c<9;c++) board.set(r,c,b.get(r,c));
-                    renderToUI(board);
+                    renderToUI(b);
                 } catch (Exception ex) {
                     ex.printStackTrace();
                 } finally {
@@ -188,14 +361,15 @@ public class GUIController extends JFrame {
     }
 
     private void onCheck() {
-        syncFromUI();
-        boolean ok = Solver.isValidBoard(board);
+        boolean ok = model.isValid();
         JOptionPane.showMessageDialog(this, ok ? "Board is valid so far." : "Invalid board: conflicts exist.", "Check", ok ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
     }
 
+    private Engine selectedEngine() {
+        return (Engine) engineBox.getSelectedItem();
+    }
+
     private void loadSample(Board b) {
-        board.clearAll();
-        for (int r=0;r<9;r++) for (int c=0;c<9;c++) board.set(r,c,b.get(r,c));
-        renderToUI(board);
+        renderToUI(b);
     }
 }
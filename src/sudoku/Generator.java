@@ -1,73 +1,330 @@
 package sudoku;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Random;
 
 /**
- * Simple generator: fill board randomly via backtracking, then remove cells
- * while ensuring uniqueness (by counting solutions up to 2).
+ * Generator: fill a board randomly via mask-based backtracking, then remove cells
+ * in random order while the puzzle keeps a unique solution.
+ * All work happens in place on one board with workspaces reused across calls,
+ * and the same seed always produces the same sequence of puzzles.
+ * Puzzles can be asked for by blank count or by {@link DifficultyRater} level.
+ * Boards of any box order are supported (9x9 by default); from 16x16 up the full grid is filled
+ * most-constrained cell first, restarting when a fill runs into too many dead ends.
+ * {@link #generateMinimal} goes further down, to minimal puzzles with few clues (up to 9x9).
  */
 public class Generator {
 
-    private final Random rnd = new Random();
+    private final Random rnd;
+    // singles only: locked candidates rarely pays off on the short searches of a removal check
+    private final Solver solver = new Solver(2, Rules.NAKED_SINGLES, Rules.HIDDEN_SINGLES);
+    private final SolverEngine checker; // uniqueness checks for DANCING_LINKS; ITERATIVE searches like BACKTRACKING
+
+    private final int boxOrder;
+    private final int side;
+    private final int cells;
+
+    // fill workspace: digits used per row/col/box as masks
+    private final int[] rowUsed;
+    private final int[] colUsed;
+    private final int[] boxUsed;
+    private final int[] order;
+    private int fillBudget; // nodes left before the current MRV fill restarts
+    private final int checkBudget; // search nodes per uniqueness check before keeping the clue anyway
+    private DifficultyRater rater; // created on first use
+
+    /** Fewest clues of any uniquely solvable 9x9 puzzle (4x4: 4). */
+    public static final int MIN_CLUES = 17;
+
+    /** Solutions looked at per attempted clue swap before giving up on it. */
+    private static final int SWAP_SOLUTIONS = 64;
+    private Solver swapSolver; // created on first use, like the tables below
+    private int[] cellOrbit, mirrorOrbit; // cell -> itself, cell -> first cell of its 180-degree pair
+    private long[] common;
+
+    public Generator() {
+        this(Engine.BACKTRACKING);
+    }
+
+    public Generator(Engine engine) {
+        this(engine, new Random().nextLong());
+    }
+
+    public Generator(long seed) {
+        this(Engine.BACKTRACKING, seed);
+    }
+
+    public Generator(Engine engine, long seed) {
+        this(engine, seed, 3);
+    }
+
+    /** Generator of boards with box order n (side n*n). DANCING_LINKS is 9x9 only. */
+    public Generator(Engine engine, long seed, int boxOrder) {
+        Board.checkOrder(boxOrder);
+        if (engine == Engine.DANCING_LINKS && boxOrder != 3) throw new IllegalArgumentException(engine + " supports 9x9 boards only");
+        this.rnd = new Random(seed);
+        this.checker = engine == Engine.DANCING_LINKS ? engine.create(2) : null;
+        this.boxOrder = boxOrder;
+        this.side = boxOrder * boxOrder;
+        this.cells = side * side;
+        this.rowUsed = new int[side];
+        this.colUsed = new int[side];
+        this.boxUsed = new int[side];
+        this.order = new int[cells];
+        // a few sparse 16x16/25x25 removals take exponential time to prove unique; skip those instead
+        this.checkBudget = boxOrder <= 3 ? Integer.MAX_VALUE : 10 * side;
+    }
 
     public Board generate(int blanksTarget) {
-        Board b = new Board();
+        Board b = new Board(boxOrder);
         fillFull(b);
+        removeClues(b, blanksTarget, DifficultyRater.Level.EXPERT);
+        return b;
+    }
+
+    /**
+     * A puzzle the {@link DifficultyRater} rates exactly target: clues are removed while the
+     * puzzle stays unique and rates no harder than target, so it ends up as sparse as the level
+     * allows. Returns null if none of maxAttempts full grids gave a puzzle of that level.
+     */
+    public Board generate(DifficultyRater.Level target, int maxAttempts) {
+        if (rater == null) rater = new DifficultyRater();
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            Board b = new Board(boxOrder);
+            fillFull(b);
+            removeClues(b, cells, target);
+            if (rater.rate(b).level == target) return b;
+        }
+        return null;
+    }
+
+    /**
+     * A minimal puzzle (removing any clue loses uniqueness) with at most maxClues clues, or null
+     * if none of maxAttempts full grids got there. With symmetric the clues come in 180-degree
+     * rotational pairs, and the puzzle is minimal among those: no pair can be removed.
+     *
+     * Each attempt removes clues in random order down to a minimal puzzle (24-25 clues typically),
+     * then keeps swapping two clues (pairs) for one of the solution's other cells while that
+     * restores uniqueness, minimizing again after every swap; it ends when no swap is left.
+     * 22 clues take about 0.2 s, 21 about a second; 20 and fewer need many attempts (see
+     * {@link BulkGenerator#generateMinimal} for running them in parallel).
+     */
+    public Board generateMinimal(int maxClues, boolean symmetric, int maxAttempts) {
+        if (boxOrder > 3) throw new IllegalArgumentException("Minimal puzzles are supported up to 9x9");
+        int fewest = boxOrder == 3 ? MIN_CLUES : 4;
+        if (maxClues < fewest) throw new IllegalArgumentException("No unique puzzle has fewer than " + fewest + " clues: " + maxClues);
+        if (swapSolver == null) {
+            swapSolver = new Solver(SWAP_SOLUTIONS, Rules.NAKED_SINGLES, Rules.HIDDEN_SINGLES);
+            cellOrbit = new int[cells];
+            mirrorOrbit = new int[cells];
+            for (int i = 0; i < cells; i++) {
+                cellOrbit[i] = i;
+                mirrorOrbit[i] = Math.min(i, cells - 1 - i);
+            }
+            common = new long[(cells + 63) / 64];
+        }
+        int[] orbit = symmetric ? mirrorOrbit : cellOrbit;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            Board solution = new Board(boxOrder);
+            fillFull(solution);
+            Board b = solution.copy();
+            int clues = minimize(b, solution, orbit);
+            while (clues > maxClues && (clues = swapClues(b, solution, orbit)) > 0) { }
+            if (clues > 0 && clues <= maxClues) return b;
+        }
+        return null;
+    }
+
+    /** Remove clues (orbits of them) in random order while the puzzle stays unique; returns the clues left. */
+    private int minimize(Board b, Board solution, int[] orbit) {
+        int n = shuffledClueOrbits(b, orbit);
+        for (int k = 0; k < n; k++) {
+            int i = order[k], j = cells - 1 - i;
+            b.setCell(i, 0);
+            boolean unique;
+            if (orbit[j] != i || j == i) {
+                unique = !solver.hasSolutionWithout(b, i, solution.cell(i));
+            } else {
+                b.setCell(j, 0);
+                unique = solver.countSolutions(b) == 1;
+            }
+            if (!unique) setOrbit(b, i, solution, orbit);
+        }
+        return clueCount(b);
+    }
+
+    /**
+     * On a minimal puzzle: remove two clue orbits, and if one orbit of the solution's other cells
+     * makes the puzzle unique again, add it and minimize. Returns the new clue count, or -1 if
+     * no two orbits can be swapped for one (the puzzle is left as it was).
+     */
+    private int swapClues(Board b, Board solution, int[] orbit) {
+        int n = shuffledClueOrbits(b, orbit);
+        for (int x = 0; x < n; x++) {
+            for (int y = x + 1; y < n; y++) {
+                clearOrbit(b, order[x], orbit);
+                clearOrbit(b, order[y], orbit);
+                if (swapSolver.commonDifference(b, solution, orbit, common)) {
+                    setOrbit(b, randomSetBit(common), solution, orbit);
+                    return minimize(b, solution, orbit);
+                }
+                setOrbit(b, order[x], solution, orbit);
+                setOrbit(b, order[y], solution, orbit);
+            }
+        }
+        return -1;
+    }
+
+    /** Put the first cells of b's clue orbits into order[], shuffled; returns how many. */
+    private int shuffledClueOrbits(Board b, int[] orbit) {
+        int n = 0;
+        for (int i = 0; i < cells; i++) {
+            if (b.cell(i) != 0 && orbit[i] == i) order[n++] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = order[i]; order[i] = order[j]; order[j] = t;
+        }
+        return n;
+    }
+
+    private void clearOrbit(Board b, int i, int[] orbit) {
+        b.setCell(i, 0);
+        if (orbit[cells - 1 - i] == i) b.setCell(cells - 1 - i, 0);
+    }
+
+    private void setOrbit(Board b, int i, Board solution, int[] orbit) {
+        b.setCell(i, solution.cell(i));
+        int j = cells - 1 - i;
+        if (orbit[j] == i) b.setCell(j, solution.cell(j));
+    }
+
+    private int clueCount(Board b) {
+        int n = 0;
+        for (int i = 0; i < cells; i++) if (b.cell(i) != 0) n++;
+        return n;
+    }
+
+    /** Index of a uniformly chosen set bit of the multi-word mask (not all zero). */
+    private int randomSetBit(long[] mask) {
+        int total = 0;
+        for (long w : mask) total += Long.bitCount(w);
+        int k = rnd.nextInt(total);
+        for (int w = 0; ; w++) {
+            int c = Long.bitCount(mask[w]);
+            if (k < c) {
+                long m = mask[w];
+                for (; k > 0; k--) m &= m - 1;
+                return w * 64 + Long.numberOfTrailingZeros(m);
+            }
+            k -= c;
+        }
+    }
+
+    /** Remove up to blanksTarget clues while the puzzle stays unique and rates at most maxLevel. */
+    private void removeClues(Board b, int blanksTarget, DifficultyRater.Level maxLevel) {
         // remove numbers randomly until we reach blanksTarget, ensuring uniqueness
-        List<int[]> cells = new ArrayList<>();
-        for (int r=0;r<9;r++) for (int c=0;c<9;c++) cells.add(new int[]{r,c});
-        Collections.shuffle(cells, rnd);
+        for (int i = 0; i < cells; i++) order[i] = i;
+        for (int i = cells - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = order[i]; order[i] = order[j]; order[j] = t;
+        }
 
         int removed = 0;
-        for (int[] rc : cells) {
-            if (removed >= blanksTarget) break;
-            int r = rc[0], c = rc[1];
+        for (int k = 0; k < cells && removed < blanksTarget; k++) {
+            int r = order[k] / side, c = order[k] % side;
             int backup = b.get(r,c);
             b.clear(r,c);
-
-            Solver s = new Solver(2); // stop if more than 1 solution
-            int count = s.countSolutions(b.copy());
-            if (count != 1) {
-                // not unique -> revert
-                b.set(r,c, backup);
-            } else {
+            if (isUnique(b, order[k], backup) && (maxLevel == DifficultyRater.Level.EXPERT
+                    || rater.rate(b).level.compareTo(maxLevel) <= 0)) {
                 removed++;
+            } else {
+                b.set(r,c, backup); // not unique or too hard -> revert
             }
         }
-        return b;
+    }
+
+    /** Whether b, which had digit removed from cell i and was unique before, is still unique. */
+    private boolean isUnique(Board b, int i, int digit) {
+        if (checker == null) return !solver.hasSolutionWithout(b, i, digit, checkBudget);
+        return checker.countSolutions(b) == 1;
     }
 
     /** Fill a board completely with a valid solution using randomized backtracking. */
-    private boolean fillFull(Board b) {
-        List<int[]> cells = new ArrayList<>();
-        for (int r=0;r<9;r++) for (int c=0;c<9;c++) cells.add(new int[]{r,c});
-        return fillBacktrack(b, 0, cells);
-    }
-
-    private boolean fillBacktrack(Board b, int idx, List<int[]> cells) {
-        if (idx >= cells.size()) return true;
-        int r = cells.get(idx)[0], c = cells.get(idx)[1];
-        if (b.get(r,c) != 0) return fillBacktrack(b, idx+1, cells);
-
-        List<Integer> vals = new ArrayList<>();
-        for (int v=1; v<=9; v++) vals.add(v);
-        Collections.shuffle(vals, rnd);
-        Solver quick = new Solver();
-        // We will attempt using quick checking by applying values and checking conflicts
-        for (int v : vals) {
-            // quick check using temporary marks
-            b.set(r,c,v);
-            if (Solver.isValidBoard(b)) {
-                if (fillBacktrack(b, idx+1, cells)) return true;
+    private void fillFull(Board b) {
+        if (boxOrder <= 3) {
+            clearFill(b);
+            fillBacktrack(b, 0);
+            return;
+        }
+        // row by row gets lost in huge subtrees on big boards: go most-constrained first, restart on bad luck
+        do {
+            clearFill(b);
+            fillBudget = 20 * cells;
+        } while (!fillMostConstrained(b, 0));
+    }
+
+    private void clearFill(Board b) {
+        b.clearAll();
+        for (int i = 0; i < side; i++) rowUsed[i] = colUsed[i] = boxUsed[i] = 0;
+    }
+
+    private boolean fillBacktrack(Board b, int i) {
+        if (i == cells) return true;
+        int r = i / side, c = i % side, box = (r/boxOrder)*boxOrder + c/boxOrder;
+        int m = (1 << side) - 1 & ~(rowUsed[r] | colUsed[c] | boxUsed[box]);
+        // try the candidates in random order
+        while (m != 0) {
+            int bit = randomBit(m);
+            m &= ~bit;
+            rowUsed[r] |= bit; colUsed[c] |= bit; boxUsed[box] |= bit;
+            b.set(r, c, Integer.numberOfTrailingZeros(bit) + 1);
+            if (fillBacktrack(b, i + 1)) return true;
+            rowUsed[r] &= ~bit; colUsed[c] &= ~bit; boxUsed[box] &= ~bit;
+        }
+        b.clear(r, c);
+        return false;
+    }
+
+    private boolean fillMostConstrained(Board b, int filled) {
+        if (filled == cells) return true;
+        if (--fillBudget < 0) return false;
+        int best = -1, bestMask = 0, bestCount = Integer.MAX_VALUE;
+        for (int i = 0; i < cells; i++) {
+            if (b.cell(i) != 0) continue;
+            int m = candidates(i);
+            int n = Integer.bitCount(m);
+            if (n == 0) return false;
+            if (n < bestCount) {
+                best = i;
+                bestMask = m;
+                bestCount = n;
             }
-            b.clear(r,c);
         }
+        int r = best / side, c = best % side, box = (r/boxOrder)*boxOrder + c/boxOrder;
+        for (int m = bestMask; m != 0; ) {
+            int bit = randomBit(m);
+            m &= ~bit;
+            rowUsed[r] |= bit; colUsed[c] |= bit; boxUsed[box] |= bit;
+            b.set(r, c, Integer.numberOfTrailingZeros(bit) + 1);
+            if (fillMostConstrained(b, filled + 1)) return true;
+            rowUsed[r] &= ~bit; colUsed[c] &= ~bit; boxUsed[box] &= ~bit;
+            if (fillBudget < 0) break;
+        }
+        b.clear(r, c);
         return false;
     }
 
+    private int candidates(int i) {
+        int r = i / side, c = i % side;
+        return (1 << side) - 1 & ~(rowUsed[r] | colUsed[c] | boxUsed[(r/boxOrder)*boxOrder + c/boxOrder]);
+    }
+
+    /** A uniformly chosen set bit of m (m != 0). */
+    private int randomBit(int m) {
+        for (int k = rnd.nextInt(Integer.bitCount(m)); k > 0; k--) m &= m - 1;
+        return m & -m;
+    }
+
     public static int difficultyToBlanks(String diff) {
         switch ((diff==null?"":diff.toLowerCase())) {
             case "easy": return 35;   // ~46 filled
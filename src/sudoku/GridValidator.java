@@ -0,0 +1,139 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * Bulk check of completed 9x9 grids, for validating submitted solutions at volume. Grids are
+ * packed one byte per cell (digits 1-9, row-major as in {@link Board}), {@link #GRID_BYTES}
+ * bytes each, back to back in one byte[]; {@link #pack} writes a board in that form.
+ * A grid is valid when every row, column and box holds each digit exactly once; empty cells
+ * and out-of-range bytes make it invalid.
+ *
+ * The result is a bitmap (bit k of word k/64 set = grid k valid) and, optionally, the first
+ * conflicting unit of each grid: 0-8 rows, 9-17 columns, 18-26 boxes, -1 for a valid grid.
+ *
+ * With {@code --add-modules jdk.incubator.vector} on the command line (and src/vector
+ * compiled), {@code VectorGridValidator} checks a vector's worth of grids at once, one lane
+ * per grid; otherwise, or when the lanes would not pay off, the scalar loop below is used.
+ * No allocation per grid either way.
+ */
+public final class GridValidator {
+
+    public static final int GRID_BYTES = 81;
+
+    /** Mask of all nine digits: the OR of a valid unit's cell bits. */
+    static final int ALL = 0x1FF;
+
+    /** Cell bit per byte value (unsigned): 1 << (v-1) for digits 1-9, 0 for anything else. */
+    static final int[] BIT = new int[256];
+
+    /** Checks grids several at a time; implemented by the vector kernel. */
+    interface Kernel {
+        /** Set the bits of the valid grids among count grids from grid index first, in valid (cleared). */
+        void validate(byte[] grids, int first, int count, long[] valid);
+    }
+
+    private static final Kernel VECTOR = loadVectorKernel(); // null: scalar only
+
+    static {
+        for (int d = 1; d <= 9; d++) BIT[d] = 1 << (d - 1);
+    }
+
+    private GridValidator() {
+    }
+
+    private static Kernel loadVectorKernel() {
+        try {
+            return (Kernel) Class.forName("sudoku.VectorGridValidator").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null; // module not added, or src/vector not compiled
+        }
+    }
+
+    /** True if the vector kernel is in use. */
+    public static boolean isVectorized() {
+        return VECTOR != null;
+    }
+
+    /** Write b's cells at grids[offset], in the packed form. b must be 9x9. */
+    public static void pack(Board b, byte[] grids, int offset) {
+        if (b.size() != Board.SIZE) throw new IllegalArgumentException("Bulk validation is 9x9 only");
+        for (int i = 0; i < GRID_BYTES; i++) grids[offset + i] = (byte) b.cell(i);
+    }
+
+    /** Validity bitmap of the count grids packed in grids. */
+    public static long[] validate(byte[] grids, int count) {
+        long[] valid = new long[(count + 63) / 64];
+        validate(grids, count, valid, null);
+        return valid;
+    }
+
+    /**
+     * Check count grids packed from the start of grids. valid (at least (count+63)/64 words)
+     * gets the bitmap; conflicts, if not null, the first conflicting unit per grid.
+     * Returns the number of valid grids.
+     */
+    public static int validate(byte[] grids, int count, long[] valid, byte[] conflicts) {
+        if (count < 0 || (long) count * GRID_BYTES > grids.length) {
+            throw new IllegalArgumentException("Expected " + count + " grids of " + GRID_BYTES + " bytes");
+        }
+        if (valid.length < (count + 63) / 64) throw new IllegalArgumentException("Bitmap too small for " + count + " grids");
+        Arrays.fill(valid, 0, (count + 63) / 64, 0L);
+        if (VECTOR != null) {
+            VECTOR.validate(grids, 0, count, valid);
+        } else {
+            for (int k = 0; k < count; k++) {
+                if (isValid(grids, k * GRID_BYTES)) valid[k >>> 6] |= 1L << k;
+            }
+        }
+        int total = 0;
+        for (int w = 0; w < (count + 63) / 64; w++) total += Long.bitCount(valid[w]);
+        if (conflicts != null) {
+            for (int k = 0; k < count; k++) {
+                conflicts[k] = (byte) ((valid[k >>> 6] & 1L << k) != 0 ? -1 : firstConflict(grids, k * GRID_BYTES));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The grid at offset, checked with the unit masks in locals: rows as they come, columns
+     * and the three boxes of the current band accumulated, no branch per cell.
+     */
+    static boolean isValid(byte[] g, int offset) {
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0, c4 = 0, c5 = 0, c6 = 0, c7 = 0, c8 = 0;
+        int ok = ALL;
+        for (int band = 0; band < 3; band++) {
+            int x0 = 0, x1 = 0, x2 = 0;
+            for (int r = 0, i = offset + band * 27; r < 3; r++, i += 9) {
+                int b0 = BIT[g[i] & 0xFF], b1 = BIT[g[i + 1] & 0xFF], b2 = BIT[g[i + 2] & 0xFF];
+                int b3 = BIT[g[i + 3] & 0xFF], b4 = BIT[g[i + 4] & 0xFF], b5 = BIT[g[i + 5] & 0xFF];
+                int b6 = BIT[g[i + 6] & 0xFF], b7 = BIT[g[i + 7] & 0xFF], b8 = BIT[g[i + 8] & 0xFF];
+                int y0 = b0 | b1 | b2, y1 = b3 | b4 | b5, y2 = b6 | b7 | b8;
+                ok &= y0 | y1 | y2;
+                x0 |= y0; x1 |= y1; x2 |= y2;
+                c0 |= b0; c1 |= b1; c2 |= b2; c3 |= b3; c4 |= b4; c5 |= b5; c6 |= b6; c7 |= b7; c8 |= b8;
+            }
+            ok &= x0 & x1 & x2;
+        }
+        ok &= c0 & c1 & c2 & c3 & c4 & c5 & c6 & c7 & c8;
+        // every mask is a subset of ALL, so their AND is ALL only if each unit has all nine digits
+        return ok == ALL;
+    }
+
+    /** First unit (rows, columns, boxes) of the grid at offset missing a digit, or -1. */
+    static int firstConflict(byte[] g, int offset) {
+        for (int u = 0; u < 27; u++) {
+            int mask = 0;
+            for (int k = 0; k < 9; k++) {
+                int r, c;
+                if (u < 9) { r = u; c = k; }
+                else if (u < 18) { r = k; c = u - 9; }
+                else { r = (u - 18) / 3 * 3 + k / 3; c = (u - 18) % 3 * 3 + k % 3; }
+                mask |= BIT[g[offset + r * 9 + c] & 0xFF];
+            }
+            if (mask != ALL) return u;
+        }
+        return -1;
+    }
+}
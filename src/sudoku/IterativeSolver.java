@@ -0,0 +1,253 @@
+package sudoku;
+
+import java.util.Arrays;
+
+/**
+ * The {@link Solver} search without recursion: branching frames live in preallocated int arrays
+ * (cell, candidates left to try, trail marks) next to the {@link CandidateGrid} trail, so stack
+ * use stays constant however deep the search goes (25x25 boards, small or virtual thread stacks).
+ *
+ * Cells, candidate order and rules are the same as in {@link Solver}, so results, solutions and
+ * counters (nodes, backtracks, guesses, depth) are identical.
+ *
+ * A search can also be run in slices: {@link #begin} sets it up, {@link #resume} runs it for a
+ * bounded number of nodes and returns whether it is finished, and the caller may stop calling
+ * resume at any point (time-slicing, cancellation). Not thread-safe, like the other engines.
+ */
+public class IterativeSolver implements SolverEngine {
+
+    private CandidateGrid grid = new CandidateGrid();
+    private final Rule[] rules;
+    private final int[] ruleFills;
+    private final int solutionLimit; // as in Solver: if <=0 then no limit
+
+    // branching frames: the cell, its candidates not tried yet, the trail mark on entering the
+    // node and before the current digit, and whether that digit is undone yet
+    private int[] frameCell, frameLeft, entryMark, branchMark;
+    private boolean[] branchOpen, frameGuess;
+    private int sp;
+
+    private boolean counting;
+    private boolean started, finished, solved;
+    private int solutionsFound;
+    private int nodes, backtracks, guesses, maxDepth;
+    private long activeNanos;
+    private Board puzzle;
+    private SolverMetrics metrics; // null unless recording
+    private SolveListener listener; // null unless watched
+
+    public IterativeSolver() {
+        this(0);
+    }
+
+    public IterativeSolver(int solutionLimit) {
+        this(solutionLimit, Rules.standard());
+    }
+
+    public IterativeSolver(int solutionLimit, Rule... rules) {
+        this.solutionLimit = solutionLimit;
+        this.rules = rules.clone();
+        this.ruleFills = new int[rules.length];
+        allocateFrames(grid.cells());
+    }
+
+    /** Solve in place. The board is only written to when a solution is found. */
+    @Override
+    public boolean solve(Board board) {
+        begin(board, false);
+        resume(Integer.MAX_VALUE);
+        return storeSolution(board);
+    }
+
+    /** Solve in slices of {@link CancellationToken#CHECK_INTERVAL} nodes, polling token in between. */
+    @Override
+    public SolveResult solve(Board board, CancellationToken token) {
+        long t0 = System.nanoTime();
+        begin(board, false);
+        boolean stopped;
+        while (!(stopped = token.shouldStop()) && !resume(CancellationToken.CHECK_INTERVAL)) { }
+        SolveResult.Status status;
+        if (stopped) {
+            status = token.stopStatus();
+            if (metrics != null) record();
+        } else {
+            status = storeSolution(board) ? SolveResult.Status.SOLVED : SolveResult.Status.UNSOLVABLE;
+        }
+        return new SolveResult(status, nodes, backtracks, guesses, maxDepth, System.nanoTime() - t0);
+    }
+
+    @Override
+    public int countSolutions(Board board) {
+        begin(board, true);
+        resume(Integer.MAX_VALUE);
+        return solutionsFound;
+    }
+
+    @Override
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setListener(SolveListener listener) {
+        this.listener = listener;
+        grid.setListener(listener);
+    }
+
+    /**
+     * Set up a search of board: for the first solution, or (count) for the number of solutions
+     * up to the limit. Nothing runs until {@link #resume}. The board is not modified.
+     */
+    public void begin(Board board, boolean count) {
+        if (board.boxOrder() != grid.order()) {
+            grid = new CandidateGrid(board.boxOrder());
+            grid.setListener(listener);
+            allocateFrames(grid.cells());
+        }
+        grid.load(board);
+        Arrays.fill(ruleFills, 0);
+        puzzle = board.copy();
+        counting = count;
+        started = finished = solved = false;
+        sp = 0;
+        solutionsFound = nodes = backtracks = guesses = maxDepth = 0;
+        activeNanos = 0;
+    }
+
+    /**
+     * Continue the search for at most maxNodes more nodes (at least one).
+     * Returns true once it is finished; calling again after that does nothing.
+     */
+    public boolean resume(int maxNodes) {
+        if (finished) return true;
+        long t0 = metrics != null ? System.nanoTime() : 0;
+        long stopAt = Math.min((long) nodes + Math.max(1, maxNodes), Integer.MAX_VALUE);
+        if (!started) {
+            started = true;
+            if (enter() == SOLVED) found();
+        }
+        while (!finished && sp > 0 && nodes < stopAt) step();
+        if (sp == 0) finished = true;
+        if (metrics != null) {
+            activeNanos += System.nanoTime() - t0;
+            if (finished) record();
+        }
+        return finished;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /** Solutions found so far (count mode), or 1 once solve mode has found one. */
+    public int getSolutionCount() {
+        return solutionsFound;
+    }
+
+    /** After a finished solve-mode search: write the solution into board if there is one. */
+    public boolean storeSolution(Board board) {
+        if (!solved) return false;
+        grid.store(board);
+        return true;
+    }
+
+    /** Search nodes visited so far. */
+    public int getNodes() {
+        return nodes;
+    }
+
+    public int getBacktracks() {
+        return backtracks;
+    }
+
+    public int getGuesses() {
+        return guesses;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /** Cells filled by each rule so far (same order as the rules). */
+    public int[] getRuleFills() {
+        return ruleFills.clone();
+    }
+
+    private void record() {
+        metrics.record("Iterative", puzzle, counting ? solutionsFound > 0 : solved, activeNanos, 0,
+                nodes, backtracks, guesses, maxDepth);
+    }
+
+    private static final int FAILED = 0, SOLVED = 1, BRANCHED = 2;
+
+    /** Visit a node: propagate and either fail, find a solution, or push a branching frame. */
+    private int enter() {
+        nodes++;
+        int mark = grid.mark();
+        if (Solver.applyRules(grid, rules, ruleFills)) {
+            int i = Solver.pickCell(grid);
+            if (i == -1) return SOLVED;
+            if (i >= 0) {
+                int m = grid.candidates(i);
+                frameCell[sp] = i;
+                frameLeft[sp] = m;
+                frameGuess[sp] = (m & (m - 1)) != 0;
+                entryMark[sp] = mark;
+                branchOpen[sp] = false;
+                if (++sp > maxDepth) maxDepth = sp;
+                return BRANCHED;
+            }
+        }
+        backtracks++;
+        grid.undo(mark);
+        return FAILED;
+    }
+
+    /** Undo the top frame's last digit, then try its next one or pop it. */
+    private void step() {
+        int f = sp - 1;
+        if (branchOpen[f]) {
+            grid.undo(branchMark[f]);
+            branchOpen[f] = false;
+            if (counting && limitReached()) {
+                finished = true;
+                return;
+            }
+        }
+        int m = frameLeft[f];
+        if (m == 0) {
+            grid.undo(entryMark[f]);
+            sp--;
+            return;
+        }
+        frameLeft[f] = m & (m - 1);
+        if (frameGuess[f]) guesses++;
+        branchMark[f] = grid.mark();
+        branchOpen[f] = true;
+        grid.place(frameCell[f], Integer.numberOfTrailingZeros(m) + 1, frameGuess[f]);
+        if (enter() == SOLVED) found();
+    }
+
+    private void found() {
+        solutionsFound++;
+        if (!counting) {
+            solved = true;
+            finished = true;
+        } else if (sp == 0 || limitReached()) {
+            finished = true;
+        }
+    }
+
+    private boolean limitReached() {
+        return solutionLimit > 0 && solutionsFound >= solutionLimit;
+    }
+
+    private void allocateFrames(int cells) {
+        frameCell = new int[cells];
+        frameLeft = new int[cells];
+        entryMark = new int[cells];
+        branchMark = new int[cells];
+        branchOpen = new boolean[cells];
+        frameGuess = new boolean[cells];
+    }
+}
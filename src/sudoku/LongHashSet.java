@@ -0,0 +1,81 @@
+package sudoku;
+
+/**
+ * Open-addressing hash set of primitive longs (linear probing, no boxing), used to remember
+ * canonical fingerprints. 8 bytes per slot at a load factor of at most 0.7 with a power-of-two
+ * table: 50 million entries need 2^27 slots, 1 GiB, and about 1.5 GiB while growing into them
+ * (old and new table side by side). Not thread-safe.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private boolean hasZero; // 0 marks empty slots, so it is tracked separately
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(1 << 16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int cap = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, expectedSize / 7L * 10 + 1)) - 1) << 1;
+        allocate(cap);
+    }
+
+    /** Add the value. Returns true if it was not present before. */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (hasZero) return false;
+            size++;
+            return hasZero = true;
+        }
+        for (int i = slot(value); ; i = (i + 1) & mask) {
+            long k = table[i];
+            if (k == EMPTY) {
+                table[i] = value;
+                if (++size > resizeAt) grow();
+                return true;
+            }
+            if (k == value) return false;
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return hasZero;
+        for (int i = slot(value); ; i = (i + 1) & mask) {
+            long k = table[i];
+            if (k == EMPTY) return false;
+            if (k == value) return true;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * 0.7);
+    }
+
+    private void grow() {
+        if (table.length == 1 << 30) throw new IllegalStateException("LongHashSet is full");
+        long[] old = table;
+        allocate(old.length * 2);
+        for (long k : old) {
+            if (k == EMPTY) continue;
+            int i = slot(k);
+            while (table[i] != EMPTY) i = (i + 1) & mask;
+            table[i] = k;
+        }
+    }
+}
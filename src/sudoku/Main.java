@@ -1,12 +1,12 @@
 package sudoku;
 
-import javax.swing.SwingUtilities;
-
+/**
+ * Starts the GUI, or with arguments solves from the command line ({@link Cli}). Swing is only
+ * reached through {@link GUIController#launch}, so command-line runs never load it.
+ */
 public class Main {
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> {
-            GUIController gui = new GUIController();
-            gui.setVisible(true);
-        });
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) Cli.main(args);
+        else GUIController.launch();
     }
 }
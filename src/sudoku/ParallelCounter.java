@@ -0,0 +1,78 @@
+package sudoku;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel version of {@link Solver#countSolutions}: the top of the search tree is split into
+ * {@link RecursiveTask}s, one per candidate of the MRV cell, and each subtree below the split
+ * is counted by a per-thread {@link Solver}. Splitting stops at a maximum depth, or earlier
+ * when the worker already has enough queued tasks for others to steal.
+ * With a solution limit, every found solution goes into a shared counter that all
+ * subtrees check, so the whole search stops once the limit is hit.
+ * Returns exactly what the sequential countSolutions would.
+ */
+public class ParallelCounter {
+
+    private static final int MAX_SPLIT_DEPTH = 12;
+    private static final int SURPLUS_TASKS = 3;
+
+    private final int solutionLimit; // if <=0 then no limit
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Solver> solvers;
+
+    public ParallelCounter(int solutionLimit) {
+        this(solutionLimit, ForkJoinPool.commonPool());
+    }
+
+    public ParallelCounter(int solutionLimit, ForkJoinPool pool) {
+        this.solutionLimit = solutionLimit;
+        this.pool = pool;
+        this.solvers = ThreadLocal.withInitial(() -> new Solver(solutionLimit));
+    }
+
+    /** Number of solutions up to the solution limit (if > 0). The board is not modified. */
+    public int countSolutions(Board board) {
+        AtomicInteger found = solutionLimit > 0 ? new AtomicInteger() : null;
+        long total = pool.invoke(new CountTask(board.copy(), 0, found));
+        if (solutionLimit > 0 && total > solutionLimit) total = solutionLimit;
+        return (int) total;
+    }
+
+    private final class CountTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+        private final AtomicInteger found; // null without a solution limit
+
+        CountTask(Board board, int depth, AtomicInteger found) {
+            this.board = board;
+            this.depth = depth;
+            this.found = found;
+        }
+
+        @Override
+        protected Long compute() {
+            if (found != null && found.get() >= solutionLimit) return 0L;
+            Solver solver = solvers.get();
+            if (depth >= MAX_SPLIT_DEPTH || getSurplusQueuedTaskCount() > SURPLUS_TASKS) {
+                return (long) solver.countShared(board, found);
+            }
+            Board[] children = new Board[board.size()];
+            int n = solver.expand(board, children);
+            if (n < 0) return 0L;
+            if (n == 0) {
+                if (found != null) found.incrementAndGet();
+                return 1L;
+            }
+            CountTask[] tasks = new CountTask[n];
+            for (int k = 0; k < n; k++) tasks[k] = new CountTask(children[k], depth + 1, found);
+            for (int k = n - 1; k > 0; k--) tasks[k].fork();
+            long total = tasks[0].compute();
+            for (int k = 1; k < n; k++) total += tasks[k].join();
+            return total;
+        }
+    }
+}
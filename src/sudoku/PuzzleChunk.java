@@ -0,0 +1,102 @@
+package sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed-size block of puzzles (one byte per cell, 0 = empty) streamed from a puzzle file,
+ * the unit of work of the batch tools. {@link #read} fills chunks taken from a bounded free
+ * list and hands them on, so memory does not depend on the file size and slow consumers
+ * hold back the reader.
+ *
+ * Text files hold one puzzle per line in the 81-character format (see {@link Board#fromString});
+ * lines shorter than 81 characters or starting with '#' are skipped. A name ending in .pzl
+ * is read as a binary {@link PuzzleFile} instead.
+ */
+class PuzzleChunk {
+
+    static final int SIZE = 4096; // puzzles per chunk
+
+    final byte[] cells = new byte[SIZE * 81];
+    long seq;        // position in the file, in chunks
+    long firstIndex; // 0-based index of the first puzzle
+    int count;
+
+    /** Stream the puzzles of in through chunks from free into work, in file order. */
+    static <C extends PuzzleChunk> void read(Path in, BlockingQueue<C> free, BlockingQueue<C> work)
+            throws IOException, InterruptedException {
+        if (in.toString().endsWith(".pzl")) readBinary(in, free, work);
+        else readText(in, free, work);
+    }
+
+    private static <C extends PuzzleChunk> void readText(Path in, BlockingQueue<C> free, BlockingQueue<C> work)
+            throws IOException, InterruptedException {
+        try (FileChannel ch = FileChannel.open(in, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20);
+            long seq = 0, index = 0;
+            C chunk = take(free);
+            int len = 0; // cells read on the current line
+            boolean comment = false;
+            while (ch.read(buf) >= 0) {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    byte b = buf.get();
+                    if (b == '\n') {
+                        if (len == 81 && !comment) {
+                            chunk.count++;
+                            if (chunk.count == SIZE) {
+                                chunk.seq = seq++;
+                                chunk.firstIndex = index;
+                                index += chunk.count;
+                                work.put(chunk);
+                                chunk = take(free);
+                            }
+                        }
+                        len = 0;
+                        comment = false;
+                    } else if (b == '#' && len == 0) {
+                        comment = true;
+                    } else if (b != '\r' && len < 81 && !comment) {
+                        chunk.cells[chunk.count * 81 + len++] = (byte) (b >= '1' && b <= '9' ? b - '0' : 0);
+                    }
+                }
+                buf.clear();
+            }
+            if (len == 81 && !comment) chunk.count++; // last line without newline
+            if (chunk.count > 0) {
+                chunk.seq = seq;
+                chunk.firstIndex = index;
+                work.put(chunk);
+            } else {
+                free.put(chunk);
+            }
+        }
+    }
+
+    private static <C extends PuzzleChunk> void readBinary(Path in, BlockingQueue<C> free, BlockingQueue<C> work)
+            throws IOException, InterruptedException {
+        try (PuzzleFile file = PuzzleFile.open(in)) {
+            long seq = 0;
+            for (long index = 0; index < file.size(); index += SIZE) {
+                C chunk = take(free);
+                chunk.count = (int) Math.min(SIZE, file.size() - index);
+                for (int k = 0; k < chunk.count; k++) {
+                    for (int i = 0; i < 81; i++) chunk.cells[k * 81 + i] = (byte) file.cell(index + k, i);
+                }
+                chunk.seq = seq++;
+                chunk.firstIndex = index;
+                work.put(chunk);
+            }
+        }
+    }
+
+    private static <C extends PuzzleChunk> C take(BlockingQueue<C> free) throws InterruptedException {
+        C c = free.take();
+        c.count = 0;
+        return c;
+    }
+}
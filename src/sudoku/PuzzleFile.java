@@ -0,0 +1,242 @@
+package sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Binary puzzle library: a fixed header followed by fixed-size records, accessed through
+ * memory-mapped segments so puzzles are read by index without any per-puzzle heap objects.
+ * Opening a file only reads the header, and segments are mapped on first use, so startup
+ * does not depend on the library size and any puzzle is reachable in O(1).
+ *
+ * Layout (little-endian):
+ * <pre>
+ * header (256 bytes): magic "SDKP", version (2), record size (2), puzzle count (8),
+ *                     puzzles per difficulty 0..15 (16 x 8), reserved
+ * record (48 bytes):  81 cells packed as in {@link PuzzleList} (41), difficulty (1), reserved (6)
+ * </pre>
+ * Difficulty 0 means unrated; {@link #difficultyCode} maps the generator's names to 1-3.
+ * Reads may come from several threads; updates of a writable file must not overlap.
+ */
+public class PuzzleFile implements Closeable {
+
+    public static final int HEADER_BYTES = 256;
+    public static final int RECORD_BYTES = 48;
+    public static final int DIFFICULTIES = 16;
+
+    private static final int MAGIC = 0x504B4453; // "SDKP" little-endian
+    private static final short VERSION = 1;
+    private static final int COUNT_OFFSET = 8;
+    private static final int HISTOGRAM_OFFSET = 16;
+    private static final int DIFFICULTY_OFFSET = PuzzleList.PACKED_BYTES;
+    private static final int SEGMENT_RECORDS = 1 << 24; // 768 MB per mapped segment
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final MappedByteBuffer header;
+    private final long count;
+    private final AtomicReferenceArray<MappedByteBuffer> segments; // mapped on first use
+    private final byte[] record = new byte[PuzzleList.PACKED_BYTES];
+
+    private PuzzleFile(Path path, boolean writable) throws IOException {
+        this.writable = writable;
+        channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_BYTES) throw new IOException("Not a puzzle file: " + path);
+            header = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a puzzle file: " + path);
+            if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_BYTES) {
+                throw new IOException("Unsupported puzzle file version in " + path);
+            }
+            count = header.getLong(COUNT_OFFSET);
+            if (channel.size() < HEADER_BYTES + count * RECORD_BYTES) throw new IOException("Truncated puzzle file: " + path);
+            segments = new AtomicReferenceArray<>((int) ((count + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static PuzzleFile open(Path path) throws IOException {
+        return new PuzzleFile(path, false);
+    }
+
+    /** Open for in-place updates through {@link #set} and {@link #setDifficulty}. */
+    public static PuzzleFile openWritable(Path path) throws IOException {
+        return new PuzzleFile(path, true);
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /** Number of puzzles with the given difficulty, from the header. */
+    public long countWithDifficulty(int difficulty) {
+        return header.getLong(HISTOGRAM_OFFSET + checkDifficulty(difficulty) * 8);
+    }
+
+    /** Decode puzzle index into an existing board. */
+    public void get(long index, Board into) {
+        ByteBuffer seg = segment(index);
+        int pos = position(index);
+        for (int k = 0; k < 40; k++) {
+            int v = seg.get(pos + k);
+            into.setCell(2 * k, v & 0xF);
+            into.setCell(2 * k + 1, (v >> 4) & 0xF);
+        }
+        into.setCell(80, seg.get(pos + 40) & 0xF);
+    }
+
+    public Board get(long index) {
+        Board b = new Board();
+        get(index, b);
+        return b;
+    }
+
+    /** Cell i (row-major) of puzzle index, read straight from the mapping. */
+    public int cell(long index, int i) {
+        int v = segment(index).get(position(index) + (i >> 1));
+        return (v >> ((i & 1) << 2)) & 0xF;
+    }
+
+    public int difficulty(long index) {
+        return segment(index).get(position(index) + DIFFICULTY_OFFSET);
+    }
+
+    /** Overwrite the cells of puzzle index (writable files only). */
+    public void set(long index, Board b) {
+        checkWritable();
+        PuzzleList.pack(b, record, 0);
+        segment(index).put(position(index), record, 0, record.length);
+    }
+
+    public void setDifficulty(long index, int difficulty) {
+        checkWritable();
+        checkDifficulty(difficulty);
+        ByteBuffer seg = segment(index);
+        int pos = position(index) + DIFFICULTY_OFFSET;
+        int old = seg.get(pos);
+        seg.put(pos, (byte) difficulty);
+        addToHistogram(header, old, -1);
+        addToHistogram(header, difficulty, 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writable) {
+            header.force();
+            for (int s = 0; s < segments.length(); s++) {
+                MappedByteBuffer seg = segments.get(s);
+                if (seg != null) seg.force();
+            }
+        }
+        channel.close();
+    }
+
+    /** 0 for unknown names, otherwise easy=1, medium=2, hard=3. */
+    public static int difficultyCode(String name) {
+        switch (name == null ? "" : name.toLowerCase()) {
+            case "easy": return 1;
+            case "medium": return 2;
+            case "hard": return 3;
+            default: return 0;
+        }
+    }
+
+    private ByteBuffer segment(long index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Puzzle " + index + " of " + count);
+        int s = (int) (index / SEGMENT_RECORDS);
+        MappedByteBuffer seg = segments.get(s);
+        if (seg == null) { // threads racing here map it twice; all use the first one published
+            long first = (long) s * SEGMENT_RECORDS;
+            long records = Math.min(SEGMENT_RECORDS, count - first);
+            try {
+                seg = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!segments.compareAndSet(s, null, seg)) seg = segments.get(s);
+        }
+        return seg;
+    }
+
+    private static int position(long index) {
+        return (int) (index % SEGMENT_RECORDS) * RECORD_BYTES;
+    }
+
+    private void checkWritable() {
+        if (!writable) throw new IllegalStateException("Puzzle file was opened read-only");
+    }
+
+    private static int checkDifficulty(int difficulty) {
+        if (difficulty < 0 || difficulty >= DIFFICULTIES) throw new IllegalArgumentException("Difficulty must be 0-15: " + difficulty);
+        return difficulty;
+    }
+
+    private static void addToHistogram(ByteBuffer header, int difficulty, long delta) {
+        int pos = HISTOGRAM_OFFSET + difficulty * 8;
+        header.putLong(pos, header.getLong(pos) + delta);
+    }
+
+    /**
+     * Creates a puzzle file by appending records; the header is written on close.
+     * Records go through a reused buffer, so writing is streaming as well.
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_BYTES * 4096).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final byte[] record = new byte[RECORD_BYTES];
+        private long count;
+
+        public Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+        }
+
+        public long add(Board b, int difficulty) throws IOException {
+            checkDifficulty(difficulty);
+            PuzzleList.pack(b, record, 0);
+            record[DIFFICULTY_OFFSET] = (byte) difficulty;
+            if (buffer.remaining() < RECORD_BYTES) flush();
+            buffer.put(record);
+            addToHistogram(header, difficulty, 1);
+            return count++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                header.putInt(0, MAGIC);
+                header.putShort(4, VERSION);
+                header.putShort(6, (short) RECORD_BYTES);
+                header.putLong(COUNT_OFFSET, count);
+                header.position(0);
+                channel.position(0);
+                while (header.hasRemaining()) channel.write(header);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
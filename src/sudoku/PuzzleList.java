@@ -0,0 +1,135 @@
+package sudoku;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Compact in-memory puzzle store: each puzzle is 81 cells at 4 bits (41 bytes) in one
+ * shared byte[], with no object per puzzle. That is over ten times smaller than a Board
+ * built on int[9][9], and copying or snapshotting a puzzle is a 41-byte array copy.
+ * Cell i of a puzzle lives in the low nibble of byte i/2 for even i, the high nibble for odd i.
+ */
+public class PuzzleList {
+
+    /** Bytes per packed puzzle. */
+    public static final int PACKED_BYTES = 41;
+
+    private byte[] data;
+    private int size;
+
+    public PuzzleList() {
+        this(1024);
+    }
+
+    public PuzzleList(int initialCapacity) {
+        data = new byte[Math.max(1, initialCapacity) * PACKED_BYTES];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Append a puzzle, returning its index. */
+    public int add(Board b) {
+        ensureCapacity(size + 1);
+        pack(b, data, size * PACKED_BYTES);
+        return size++;
+    }
+
+    /** Append a puzzle in the 81-character format (see {@link Board#fromString}), returning its index. */
+    public int addLine(CharSequence line) {
+        if (line.length() < 81) throw new IllegalArgumentException("Expected 81 cells, got " + line.length());
+        ensureCapacity(size + 1);
+        int off = size * PACKED_BYTES;
+        for (int i = 0; i < 81; i++) {
+            char ch = line.charAt(i);
+            putCell(data, off, i, ch >= '1' && ch <= '9' ? ch - '0' : 0);
+        }
+        return size++;
+    }
+
+    public Board get(int index) {
+        Board b = new Board();
+        get(index, b);
+        return b;
+    }
+
+    /** Decode puzzle index into an existing board. */
+    public void get(int index, Board into) {
+        unpack(data, offset(index), into);
+    }
+
+    public int cell(int index, int i) {
+        return getCell(data, offset(index), i);
+    }
+
+    public void set(int index, Board b) {
+        pack(b, data, offset(index));
+    }
+
+    /** Read every line with at least 81 characters (skipping '#' comments) from the reader. */
+    public int readLines(BufferedReader in) throws IOException {
+        int added = 0;
+        for (String line; (line = in.readLine()) != null; ) {
+            if (line.length() < 81 || line.startsWith("#")) continue;
+            addLine(line);
+            added++;
+        }
+        return added;
+    }
+
+    /** Write all puzzles in the 81-character format, one per line. */
+    public void writeLines(Writer out) throws IOException {
+        char[] line = new char[82];
+        line[81] = '\n';
+        for (int p = 0; p < size; p++) {
+            int off = p * PACKED_BYTES;
+            for (int i = 0; i < 81; i++) line[i] = (char) ('0' + getCell(data, off, i));
+            out.write(line);
+        }
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Puzzle " + index + " of " + size);
+        return index * PACKED_BYTES;
+    }
+
+    private void ensureCapacity(int puzzles) {
+        long needed = (long) puzzles * PACKED_BYTES;
+        if (needed <= data.length) return;
+        long grown = Math.max(needed, data.length + (data.length >> 1));
+        if (grown > Integer.MAX_VALUE - 8) grown = Integer.MAX_VALUE - 8;
+        if (grown < needed) throw new IllegalStateException("PuzzleList is full");
+        data = Arrays.copyOf(data, (int) grown);
+    }
+
+    /** Pack the board into PACKED_BYTES bytes at dst[off]. */
+    public static void pack(Board b, byte[] dst, int off) {
+        if (b.size() != 9) throw new IllegalArgumentException("Only 9x9 boards can be packed");
+        for (int k = 0; k < 40; k++) {
+            dst[off + k] = (byte) (b.cell(2 * k) | b.cell(2 * k + 1) << 4);
+        }
+        dst[off + 40] = (byte) b.cell(80);
+    }
+
+    /** Unpack PACKED_BYTES bytes at src[off] into the board. */
+    public static void unpack(byte[] src, int off, Board into) {
+        for (int k = 0; k < 40; k++) {
+            int v = src[off + k];
+            into.setCell(2 * k, v & 0xF);
+            into.setCell(2 * k + 1, (v >> 4) & 0xF);
+        }
+        into.setCell(80, src[off + 40] & 0xF);
+    }
+
+    static int getCell(byte[] packed, int off, int i) {
+        return (packed[off + (i >> 1)] >> ((i & 1) << 2)) & 0xF;
+    }
+
+    static void putCell(byte[] packed, int off, int i, int v) {
+        int k = off + (i >> 1), shift = (i & 1) << 2;
+        packed[k] = (byte) ((packed[k] & ~(0xF << shift)) | v << shift);
+    }
+}
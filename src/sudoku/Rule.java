@@ -0,0 +1,33 @@
+package sudoku;
+
+/**
+ * A logical deduction the solver applies before and between branching steps.
+ * Implementations must only place digits or eliminate candidates that follow
+ * from the current grid, so the set of solutions never changes.
+ */
+public interface Rule {
+
+    /** Returned by {@link #apply} when the grid can't be completed. */
+    int CONTRADICTION = -1;
+
+    String name();
+
+    /**
+     * Run one pass of the deduction over the grid.
+     * Returns the number of placements/eliminations made, or CONTRADICTION.
+     */
+    int apply(CandidateGrid grid);
+
+    /**
+     * True if the deduction only looks inside one unit at a time. The solver then runs
+     * {@link #apply(CandidateGrid, int)} on the units that changed instead of whole-grid passes.
+     */
+    default boolean byUnit() {
+        return false;
+    }
+
+    /** Run the deduction on unit u only (see {@link #byUnit()}). Returns as {@link #apply(CandidateGrid)}. */
+    default int apply(CandidateGrid grid, int unit) {
+        return apply(grid);
+    }
+}
@@ -0,0 +1,404 @@
+package sudoku;
+
+/**
+ * The built-in propagation rules, cheapest first:
+ * - naked singles: a cell with one candidate left gets that digit
+ * - hidden singles: a digit with one possible cell in a unit goes there
+ * - locked candidates: pointing (box -> line) and claiming (line -> box) eliminations
+ * The solver uses only the singles by default: locked candidates cost more per search node
+ * than they save in guesses. The first three work unit by unit (see {@link Rule#byUnit()}).
+ * The human-style techniques below are used by {@link DifficultyRater}:
+ * - naked pairs/triples: n cells of a unit with n candidates between them
+ * - hidden pairs/triples: n digits confined to n cells of a unit
+ * - X-Wing/Swordfish: a digit confined to the same n columns in n rows (or vice versa)
+ * - XY-Wing: a bivalue pivot xy with bivalue pincers xz and yz removes z from cells seeing both pincers
+ */
+public final class Rules {
+
+    public static final Rule NAKED_SINGLES = new NakedSingles();
+    public static final Rule HIDDEN_SINGLES = new HiddenSingles();
+    public static final Rule LOCKED_CANDIDATES = new LockedCandidates();
+    public static final Rule NAKED_PAIRS = new NakedSubsets(2, "naked pair");
+    public static final Rule NAKED_TRIPLES = new NakedSubsets(3, "naked triple");
+    public static final Rule HIDDEN_PAIRS = new HiddenSubsets(2, "hidden pair");
+    public static final Rule HIDDEN_TRIPLES = new HiddenSubsets(3, "hidden triple");
+    public static final Rule X_WING = new Fish(2, "X-Wing");
+    public static final Rule SWORDFISH = new Fish(3, "Swordfish");
+    public static final Rule XY_WING = new XyWing();
+
+    private Rules() {}
+
+    /** The rule set the solver uses by default. */
+    public static Rule[] standard() {
+        return new Rule[]{NAKED_SINGLES, HIDDEN_SINGLES};
+    }
+
+    private static final class NakedSingles implements Rule {
+        @Override
+        public String name() { return "naked single"; }
+
+        @Override
+        public int apply(CandidateGrid g) {
+            int placed = 0;
+            for (int i = 0, cells = g.cells(); i < cells; i++) {
+                if (!g.isEmpty(i)) continue;
+                int m = g.candidates(i);
+                if (m == 0) return CONTRADICTION;
+                if ((m & (m - 1)) == 0) {
+                    g.place(i, Integer.numberOfTrailingZeros(m) + 1);
+                    placed++;
+                }
+            }
+            return placed;
+        }
+
+        @Override
+        public boolean byUnit() { return true; }
+
+        @Override
+        public int apply(CandidateGrid g, int u) {
+            if (u >= g.side()) return 0; // a changed cell queues its row too: rows see every cell
+            int placed = 0;
+            for (int i : g.unit(u)) {
+                if (!g.isEmpty(i)) continue;
+                int m = g.candidates(i);
+                if (m == 0) return CONTRADICTION;
+                if ((m & (m - 1)) == 0) {
+                    g.place(i, Integer.numberOfTrailingZeros(m) + 1);
+                    placed++;
+                }
+            }
+            return placed;
+        }
+    }
+
+    private static final class HiddenSingles implements Rule {
+        @Override
+        public String name() { return "hidden single"; }
+
+        @Override
+        public int apply(CandidateGrid g) {
+            int placed = 0;
+            for (int u = 0, units = g.unitCount(); u < units; u++) {
+                int n = apply(g, u);
+                if (n == CONTRADICTION) return CONTRADICTION;
+                placed += n;
+            }
+            return placed;
+        }
+
+        @Override
+        public boolean byUnit() { return true; }
+
+        @Override
+        public int apply(CandidateGrid g, int u) {
+            int[] unit = g.unit(u);
+            int once = 0, twice = 0;
+            for (int i : unit) {
+                int m = g.candidates(i); // 0 for filled cells
+                twice |= once & m;
+                once |= m;
+            }
+            if ((once | g.used(u)) != g.all()) return CONTRADICTION; // some digit has no place
+            int placed = 0;
+            for (int singles = once & ~twice; singles != 0; singles &= singles - 1) {
+                int bit = singles & -singles;
+                for (int i : unit) {
+                    if ((g.candidates(i) & bit) != 0) {
+                        g.place(i, Integer.numberOfTrailingZeros(bit) + 1);
+                        placed++;
+                        break;
+                    }
+                }
+                // the cell may have been taken by another single of this unit
+                if ((g.used(u) & bit) == 0) return CONTRADICTION;
+            }
+            return placed;
+        }
+    }
+
+    private static final class LockedCandidates implements Rule {
+        @Override
+        public String name() { return "locked candidates"; }
+
+        @Override
+        public int apply(CandidateGrid g) {
+            int changed = 0;
+            int side = g.side();
+            // pointing for every box, then claiming for every line
+            for (int b = 0; b < side; b++) changed += apply(g, 2 * side + b);
+            for (int u = 0; u < 2 * side; u++) changed += apply(g, u);
+            return changed;
+        }
+
+        @Override
+        public boolean byUnit() { return true; }
+
+        @Override
+        public int apply(CandidateGrid g, int u) {
+            int changed = 0;
+            int n = g.order(), side = g.side();
+            int[] unit = g.unit(u);
+            if (u >= 2 * side) {
+                // pointing: digits of a box confined to one of its rows/cols leave the rest of that line
+                int b = u - 2 * side;
+                for (int k = 0; k < n; k++) {
+                    int row = 0, otherRows = 0, col = 0, otherCols = 0;
+                    for (int j = 0; j < side; j++) {
+                        int m = g.candidates(unit[j]);
+                        if (j / n == k) row |= m; else otherRows |= m;
+                        if (j % n == k) col |= m; else otherCols |= m;
+                    }
+                    if ((row & ~otherRows) != 0) changed += eliminateOutside(g, (b / n) * n + k, u, row & ~otherRows);
+                    if ((col & ~otherCols) != 0) changed += eliminateOutside(g, side + (b % n) * n + k, u, col & ~otherCols);
+                }
+                return changed;
+            }
+            // claiming: digits of a line confined to one box leave the rest of that box
+            for (int k = 0; k < n; k++) {
+                int seg = 0, rest = 0;
+                for (int j = 0; j < side; j++) {
+                    if (j / n == k) seg |= g.candidates(unit[j]); else rest |= g.candidates(unit[j]);
+                }
+                if ((seg & ~rest) != 0) changed += eliminateOutside(g, 2 * side + g.box(unit[k * n]), u, seg & ~rest);
+            }
+            return changed;
+        }
+
+        /** Eliminate mask from the empty cells of unit u that are not in unit except. */
+        private static int eliminateOutside(CandidateGrid g, int u, int except, int mask) {
+            int changed = 0;
+            for (int i : g.unit(u)) {
+                if (g.isEmpty(i) && !inUnit(g, i, except) && g.eliminate(i, mask)) changed++;
+            }
+            return changed;
+        }
+
+        private static boolean inUnit(CandidateGrid g, int i, int u) {
+            int side = g.side();
+            if (u < side) return g.row(i) == u;
+            if (u < 2 * side) return g.col(i) == u - side;
+            return g.box(i) == u - 2 * side;
+        }
+    }
+
+    private static final class NakedSubsets implements Rule {
+        private final int size;
+        private final String name;
+
+        NakedSubsets(int size, String name) {
+            this.size = size;
+            this.name = name;
+        }
+
+        @Override
+        public String name() { return name; }
+
+        @Override
+        public int apply(CandidateGrid g) {
+            int changed = 0;
+            int side = g.side();
+            for (int u = 0, units = g.unitCount(); u < units; u++) {
+                int[] unit = g.unit(u);
+                for (int a = 0; a < side; a++) {
+                    int ma = subsetCell(g, unit[a]);
+                    if (ma == 0) continue;
+                    for (int b = a + 1; b < side; b++) {
+                        int mb = subsetCell(g, unit[b]);
+                        if (mb == 0 || Integer.bitCount(ma | mb) > size) continue;
+                        if (size == 2) {
+                            changed += eliminateExcept(g, unit, ma | mb, 1 << a | 1 << b);
+                            continue;
+                        }
+                        for (int c = b + 1; c < side; c++) {
+                            int mc = subsetCell(g, unit[c]);
+                            if (mc == 0 || Integer.bitCount(ma | mb | mc) != 3) continue;
+                            changed += eliminateExcept(g, unit, ma | mb | mc, 1 << a | 1 << b | 1 << c);
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+
+        /** Candidates of cell i if it can be part of a subset of this size, else 0. */
+        private int subsetCell(CandidateGrid g, int i) {
+            if (!g.isEmpty(i)) return 0;
+            int m = g.candidates(i);
+            int n = Integer.bitCount(m);
+            return n >= 2 && n <= size ? m : 0;
+        }
+
+        /** Eliminate mask from the empty cells of unit whose positions are not in keep. */
+        private static int eliminateExcept(CandidateGrid g, int[] unit, int mask, int keep) {
+            int changed = 0;
+            for (int j = 0; j < unit.length; j++) {
+                if ((keep >> j & 1) == 0 && g.isEmpty(unit[j]) && g.eliminate(unit[j], mask)) changed++;
+            }
+            return changed;
+        }
+    }
+
+    private static final class HiddenSubsets implements Rule {
+        private final int size;
+        private final String name;
+
+        HiddenSubsets(int size, String name) {
+            this.size = size;
+            this.name = name;
+        }
+
+        @Override
+        public String name() { return name; }
+
+        @Override
+        public int apply(CandidateGrid g) {
+            int changed = 0;
+            int side = g.side();
+            int[] where = new int[side]; // positions in the unit (bit j = unit[j]) where each digit can go
+            for (int u = 0, units = g.unitCount(); u < units; u++) {
+                int[] unit = g.unit(u);
+                for (int d = 0; d < side; d++) where[d] = 0;
+                for (int j = 0; j < side; j++) {
+                    if (!g.isEmpty(unit[j])) continue;
+                    for (int m = g.candidates(unit[j]); m != 0; m &= m - 1) where[Integer.numberOfTrailingZeros(m)] |= 1 << j;
+                }
+                for (int a = 0; a < side; a++) {
+                    if (!subsetDigit(where[a])) continue;
+                    for (int b = a + 1; b < side; b++) {
+                        if (!subsetDigit(where[b]) || Integer.bitCount(where[a] | where[b]) > size) continue;
+                        if (size == 2) {
+                            changed += keepOnly(g, unit, where[a] | where[b], 1 << a | 1 << b);
+                            continue;
+                        }
+                        for (int c = b + 1; c < side; c++) {
+                            int cells = where[a] | where[b] | where[c];
+                            if (!subsetDigit(where[c]) || Integer.bitCount(cells) != 3) continue;
+                            changed += keepOnly(g, unit, cells, 1 << a | 1 << b | 1 << c);
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+
+        private boolean subsetDigit(int positions) {
+            int n = Integer.bitCount(positions);
+            return n >= 2 && n <= size;
+        }
+
+        /** In the cells of unit at the given positions, eliminate every candidate outside digits. */
+        private static int keepOnly(CandidateGrid g, int[] unit, int positions, int digits) {
+            int changed = 0;
+            for (int p = positions; p != 0; p &= p - 1) {
+                if (g.eliminate(unit[Integer.numberOfTrailingZeros(p)], ~digits & g.all())) changed++;
+            }
+            return changed;
+        }
+    }
+
+    private static final class Fish implements Rule {
+        private final int size;
+        private final String name;
+
+        Fish(int size, String name) {
+            this.size = size;
+            this.name = name;
+        }
+
+        @Override
+        public String name() { return name; }
+
+        @Override
+        public int apply(CandidateGrid g) {
+            int changed = 0;
+            int side = g.side();
+            int[] cover = new int[side]; // per base line, the cross lines where the digit can go
+            for (int d = 0; d < side; d++) {
+                int bit = 1 << d;
+                for (int rows = 0; rows < 2; rows++) {
+                    int base = rows == 0 ? 0 : side; // base units: rows, then columns
+                    for (int k = 0; k < side; k++) {
+                        int[] line = g.unit(base + k);
+                        cover[k] = 0;
+                        for (int j = 0; j < side; j++) {
+                            if (g.isEmpty(line[j]) && (g.candidates(line[j]) & bit) != 0) cover[k] |= 1 << j;
+                        }
+                    }
+                    for (int a = 0; a < side; a++) {
+                        if (!fishLine(cover[a])) continue;
+                        for (int b = a + 1; b < side; b++) {
+                            if (!fishLine(cover[b]) || Integer.bitCount(cover[a] | cover[b]) > size) continue;
+                            if (size == 2) {
+                                changed += eliminateCrossLines(g, side - base, cover[a] | cover[b], 1 << a | 1 << b, bit);
+                                continue;
+                            }
+                            for (int c = b + 1; c < side; c++) {
+                                int cross = cover[a] | cover[b] | cover[c];
+                                if (!fishLine(cover[c]) || Integer.bitCount(cross) != 3) continue;
+                                changed += eliminateCrossLines(g, side - base, cross, 1 << a | 1 << b | 1 << c, bit);
+                            }
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+
+        private boolean fishLine(int positions) {
+            int n = Integer.bitCount(positions);
+            return n >= 2 && n <= size;
+        }
+
+        /** Eliminate bit from the cross lines (units crossBase + k for k in cross) outside the base lines. */
+        private static int eliminateCrossLines(CandidateGrid g, int crossBase, int cross, int baseLines, int bit) {
+            int changed = 0;
+            for (int c = cross; c != 0; c &= c - 1) {
+                int[] line = g.unit(crossBase + Integer.numberOfTrailingZeros(c));
+                for (int j = 0; j < line.length; j++) {
+                    // position j along a cross line is base line j
+                    if ((baseLines >> j & 1) == 0 && g.isEmpty(line[j]) && g.eliminate(line[j], bit)) changed++;
+                }
+            }
+            return changed;
+        }
+    }
+
+    private static final class XyWing implements Rule {
+        @Override
+        public String name() { return "XY-Wing"; }
+
+        @Override
+        public int apply(CandidateGrid g) {
+            int changed = 0;
+            int cells = g.cells();
+            for (int p = 0; p < cells; p++) {
+                int mp = bivalue(g, p);
+                if (mp == 0) continue;
+                for (int a = 0; a < cells; a++) {
+                    int ma = bivalue(g, a);
+                    if (ma == 0 || ma == mp || Integer.bitCount(ma & mp) != 1 || !sees(g, p, a)) continue;
+                    int z = ma & ~mp;
+                    int mb = (mp & ~ma) | z;
+                    for (int b = 0; b < cells; b++) {
+                        if (bivalue(g, b) != mb || !sees(g, p, b)) continue;
+                        for (int i = 0; i < cells; i++) {
+                            if (i != a && i != b && i != p && g.isEmpty(i) && sees(g, i, a) && sees(g, i, b) && g.eliminate(i, z)) changed++;
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+
+        private static int bivalue(CandidateGrid g, int i) {
+            if (!g.isEmpty(i)) return 0;
+            int m = g.candidates(i);
+            return Integer.bitCount(m) == 2 ? m : 0;
+        }
+
+        private static boolean sees(CandidateGrid g, int i, int j) {
+            return i != j && (g.row(i) == g.row(j) || g.col(i) == g.col(j) || g.box(i) == g.box(j));
+        }
+    }
+}
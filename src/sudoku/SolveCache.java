@@ -0,0 +1,157 @@
+package sudoku;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, thread-safe map from canonical puzzle forms (see {@link Canonicalizer}) to the
+ * solution of that canonical form, shared by any number of {@link CachingSolver}s.
+ * Entries are spread over independently locked stripes by the form's fingerprint; each stripe
+ * is an access-ordered LinkedHashMap evicting its least recently used entry when full.
+ * Keys and solutions are stored packed (41 bytes each, as in {@link PuzzleList}).
+ */
+public class SolveCache {
+
+    /** Cached result of a canonical form that has no solution. */
+    static final byte[] NO_SOLUTION = new byte[0];
+
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SolveCache(int capacity) {
+        this(capacity, 16);
+    }
+
+    /** capacity is the total number of entries; stripes is rounded up to a power of two. */
+    public SolveCache(int capacity, int stripes) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        int n = Integer.highestOneBit(Math.max(1, Math.min(stripes, capacity)) * 2 - 1);
+        this.stripes = new Stripe[n];
+        for (int s = 0; s < n; s++) this.stripes[s] = new Stripe((capacity + n - 1) / n);
+    }
+
+    private final class Stripe extends LinkedHashMap<Key, byte[]> {
+        private static final long serialVersionUID = 1L; // never serialized; LinkedHashMap is Serializable
+
+        final ReentrantLock lock = new ReentrantLock();
+        final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    private static final class Key {
+        final byte[] packed = new byte[PuzzleList.PACKED_BYTES];
+        final int hash;
+
+        Key(int[] form, long fingerprint) {
+            for (int i = 0; i < 81; i++) PuzzleList.putCell(packed, 0, i, form[i]);
+            hash = (int) (fingerprint ^ (fingerprint >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(packed, ((Key) o).packed);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** Packed solution of the canonical form, {@link #NO_SOLUTION}, or null when not cached. */
+    byte[] get(int[] form) {
+        long fp = Canonicalizer.fingerprint(form);
+        Key key = new Key(form, fp);
+        Stripe s = stripe(fp);
+        byte[] v;
+        s.lock.lock();
+        try {
+            v = s.get(key);
+        } finally {
+            s.lock.unlock();
+        }
+        if (v == null) misses.increment();
+        else hits.increment();
+        return v;
+    }
+
+    /** Remember the solution (null: none) of the canonical form. */
+    void put(int[] form, Board solution) {
+        long fp = Canonicalizer.fingerprint(form);
+        byte[] v = NO_SOLUTION;
+        if (solution != null) {
+            v = new byte[PuzzleList.PACKED_BYTES];
+            PuzzleList.pack(solution, v, 0);
+        }
+        Stripe s = stripe(fp);
+        s.lock.lock();
+        try {
+            s.put(new Key(form, fp), v);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    private Stripe stripe(long fingerprint) {
+        return stripes[(int) (fingerprint >>> 40) & (stripes.length - 1)];
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int n = 0;
+        for (Stripe s : stripes) {
+            s.lock.lock();
+            try {
+                n += s.size();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        return n;
+    }
+
+    public void clear() {
+        for (Stripe s : stripes) {
+            s.lock.lock();
+            try {
+                s.clear();
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        long h = hits(), m = misses();
+        return String.format("cache: %d entries, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                size(), h, m, h + m == 0 ? 0 : 100.0 * h / (h + m), evictions());
+    }
+}
@@ -0,0 +1,86 @@
+package sudoku;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free ring of solver events between one solving thread (the producer, as a
+ * {@link SolveListener}) and one consumer, e.g. the GUI replaying the search at its own pace.
+ * Each event is one int; decode with {@link #type}, {@link #cell} and {@link #digit}.
+ *
+ * When the ring is full the producer waits for the consumer (it parks, so a slow playback
+ * slows the search to match instead of losing events); {@link #close} makes it drop events
+ * from then on so a search can run to its end without a consumer.
+ */
+public final class SolveEventBuffer implements SolveListener {
+
+    public static final int PLACE = 0;
+    public static final int GUESS = 1;
+    public static final int CLEAR = 2;
+
+    private final int[] ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next event to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next free slot, written by the producer
+    private long headCache; // producer's last look at head
+    private volatile boolean closed;
+
+    /** A ring of at least the given capacity (rounded up to a power of two). */
+    public SolveEventBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new int[size];
+        mask = size - 1;
+    }
+
+    public static int type(int event) {
+        return event >>> 16;
+    }
+
+    public static int cell(int event) {
+        return event & 0x3FF;
+    }
+
+    public static int digit(int event) {
+        return (event >>> 10) & 0x3F;
+    }
+
+    @Override
+    public void placed(int cell, int digit, boolean guess) {
+        offer((guess ? GUESS : PLACE) << 16 | digit << 10 | cell);
+    }
+
+    @Override
+    public void cleared(int cell) {
+        offer(CLEAR << 16 | cell);
+    }
+
+    private void offer(int event) {
+        long t = tail.get();
+        if (t - headCache == ring.length) {
+            while (t - (headCache = head.get()) == ring.length) {
+                if (closed) return;
+                LockSupport.parkNanos(100_000);
+            }
+        }
+        ring[(int) t & mask] = event;
+        tail.lazySet(t + 1);
+    }
+
+    /** Move up to max events into out (from index 0); returns how many. Consumer thread only. */
+    public int drain(int[] out, int max) {
+        long h = head.get();
+        int n = (int) Math.min(Math.min(max, out.length), tail.get() - h);
+        for (int k = 0; k < n; k++) out[k] = ring[(int) (h + k) & mask];
+        head.lazySet(h + n);
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /** Stop waiting for the consumer: events that do not fit are dropped from now on. */
+    public void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,15 @@
+package sudoku;
+
+/**
+ * Hears every digit a search places and every placement it takes back, in order, so the
+ * search can be replayed (see {@link SolveEventBuffer}). Called on the solving thread, so
+ * implementations must be quick. Set with {@link SolverEngine#setListener}.
+ */
+public interface SolveListener {
+
+    /** Digit placed in cell: by the search choosing a branch when guess is set, else deduced by a rule. */
+    void placed(int cell, int digit, boolean guess);
+
+    /** The placement in cell was undone. */
+    void cleared(int cell);
+}
@@ -0,0 +1,51 @@
+package sudoku;
+
+/**
+ * Outcome of a {@link SolverEngine#solve(Board, CancellationToken)} call, with the search
+ * statistics up to the point where it ended (partial for TIMED_OUT and CANCELLED).
+ */
+public final class SolveResult {
+
+    public enum Status {
+        /** The board was solved (and written to). */
+        SOLVED,
+        /** The search finished without a solution. */
+        UNSOLVABLE,
+        /** The token's deadline passed first. */
+        TIMED_OUT,
+        /** The token was cancelled first. */
+        CANCELLED
+    }
+
+    public final Status status;
+    public final int nodes;
+    public final int backtracks;
+    public final int guesses;
+    public final int maxDepth;
+    /** Wall time of the call. */
+    public final long nanos;
+
+    SolveResult(Status status, int nodes, int backtracks, int guesses, int maxDepth, long nanos) {
+        this.status = status;
+        this.nodes = nodes;
+        this.backtracks = backtracks;
+        this.guesses = guesses;
+        this.maxDepth = maxDepth;
+        this.nanos = nanos;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /** True if the search ran to the end, i.e. SOLVED or UNSOLVABLE. */
+    public boolean isComplete() {
+        return status == Status.SOLVED || status == Status.UNSOLVABLE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s after %d nodes, %d backtracks, %d guesses, depth %d, %.3f ms",
+                status, nodes, backtracks, guesses, maxDepth, nanos / 1e6);
+    }
+}
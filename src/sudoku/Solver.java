@@ -1,172 +1,433 @@
 package sudoku;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Backtracking Sudoku solver with basic optimizations:
- * - keep track of used numbers per row/col/box with boolean arrays
- * - choose next empty cell with minimum possible candidates (simple heuristic)
+ * Backtracking Sudoku solver working on candidate bit masks (9 bits for 9x9, up to 25 bits for 25x25):
+ * - digits used per row/col/box are kept as int masks (bit d-1 set = digit d used)
+ * - before and between branching steps a set of {@link Rule}s fills in whatever
+ *   follows logically (naked and hidden singles by default), looking only at units that changed
+ * - the next empty cell is the one with the fewest candidates (Integer.bitCount)
+ * - all search state lives in a preallocated {@link CandidateGrid}, so searching allocates nothing
+ *   (the grid is replaced only when the board size changes)
  */
-public class Solver {
+public class Solver implements SolverEngine {
 
-    private final boolean[][] rowUsed = new boolean[9][10];
-    private final boolean[][] colUsed = new boolean[9][10];
-    private final boolean[][] boxUsed = new boolean[9][10];
+    private CandidateGrid grid = new CandidateGrid();
+    private final Rule[] rules;
+    private final int[] ruleFills;
+    private int guesses;
+    private int nodes, backtracks, depth, maxDepth;
+    private int nodeLimit = Integer.MAX_VALUE; // next checkpoint: a node budget, or when to poll token
+    private CancellationToken token; // set during solve(Board, CancellationToken)
+    private boolean stopped; // the token stopped the last search
+    private long propagateNanos;
+    private SolverMetrics metrics; // null unless recording
+    private SolveListener listener; // null unless watched
     private int solutionsFound = 0;
+    private AtomicInteger sharedFound; // set while counting a subtree for ParallelCounter
     private final int solutionLimit; // when >1 used for uniqueness checks. if <=0 then no limit
+    private int countLimit; // limit of the running count: solutionLimit unless given per call
+    // set during commonDifference
+    private Board reference;
+    private int[] orbit;
+    private long[] common, difference;
+    private boolean commonEmpty;
 
     public Solver() {
         this(0);
     }
 
     public Solver(int solutionLimit) {
+        this(solutionLimit, Rules.standard());
+    }
+
+    /** Solver using the given propagation rules; no rules means plain backtracking. */
+    public Solver(int solutionLimit, Rule... rules) {
         this.solutionLimit = solutionLimit;
+        this.rules = rules.clone();
+        this.ruleFills = new int[rules.length];
     }
 
+    /** Solve in place. The board is only written to when a solution is found. */
+    @Override
     public boolean solve(Board board) {
-        initialize(board);
-        return backtrack(board);
+        long t0 = metrics != null ? System.nanoTime() : 0;
+        start(board);
+        boolean solved = backtrack();
+        if (metrics != null) record(board, solved, t0);
+        if (!solved) return false;
+        grid.store(board);
+        return true;
+    }
+
+    @Override
+    public SolveResult solve(Board board, CancellationToken token) {
+        long t0 = System.nanoTime();
+        start(board);
+        this.token = token;
+        nodeLimit = 0; // poll on the first node
+        boolean found;
+        try {
+            found = backtrack();
+        } finally {
+            this.token = null;
+            nodeLimit = Integer.MAX_VALUE;
+        }
+        SolveResult.Status status = stopped ? token.stopStatus()
+                : found ? SolveResult.Status.SOLVED : SolveResult.Status.UNSOLVABLE;
+        if (metrics != null) record(board, found && !stopped, t0);
+        if (status == SolveResult.Status.SOLVED) grid.store(board);
+        return new SolveResult(status, nodes, backtracks, guesses, maxDepth, System.nanoTime() - t0);
     }
 
     /**
      * Find number of solutions up to the solutionLimit (if solutionLimit>0).
      * Returns number of solutions found (may be >1 or 0).
      */
+    @Override
     public int countSolutions(Board board) {
+        long t0 = metrics != null ? System.nanoTime() : 0;
         solutionsFound = 0;
-        initialize(board);
-        backtrackCount(board);
+        start(board);
+        backtrackCount();
+        if (metrics != null) record(board, solutionsFound > 0, t0);
         return solutionsFound;
     }
 
-    private void initialize(Board board) {
-        for (int i = 0; i < 9; i++) {
-            for (int d = 1; d <= 9; d++) {
-                rowUsed[i][d] = false;
-                colUsed[i][d] = false;
-                boxUsed[i][d] = false;
-            }
+    /**
+     * Count solutions up to limit (instead of the solver's own; <= 0: no limit) unless token
+     * stops the search first (polled every {@link CancellationToken#CHECK_INTERVAL} nodes); then -1.
+     */
+    public int countSolutions(Board board, int limit, CancellationToken token) {
+        long t0 = metrics != null ? System.nanoTime() : 0;
+        solutionsFound = 0;
+        start(board);
+        countLimit = limit;
+        this.token = token;
+        nodeLimit = 0; // poll on the first node
+        try {
+            backtrackCount();
+        } finally {
+            this.token = null;
+            nodeLimit = Integer.MAX_VALUE;
         }
-        for (int r = 0; r < 9; r++) {
-            for (int c = 0; c < 9; c++) {
-                int v = board.get(r, c);
-                if (v != 0) {
-                    if (!isValidPlacementNoCheck(board, r, c, v)) {
-                        // invalid initial board: we still mark but must be careful
-                    }
-                    mark(r, c, v, true);
-                }
-            }
+        if (metrics != null) record(board, solutionsFound > 0 && !stopped, t0);
+        return stopped ? -1 : solutionsFound;
+    }
+
+    /**
+     * Count the solutions of a subtree for {@link ParallelCounter}. Every solution is also
+     * added to total, and the search stops once total reaches the solution limit.
+     */
+    int countShared(Board board, AtomicInteger total) {
+        sharedFound = total;
+        try {
+            return countSolutions(board);
+        } finally {
+            sharedFound = null;
+        }
+    }
+
+    /**
+     * Propagate the board and branch on its MRV cell, writing one child board per candidate
+     * into out (length at least the board size). Returns the number of children, 0 if propagation solved the board,
+     * or -1 on a contradiction.
+     */
+    int expand(Board board, Board[] out) {
+        start(board);
+        if (!propagate()) return -1;
+        int i = pickCell(grid);
+        if (i == -2) return -1;
+        if (i == -1) return 0;
+        int n = 0;
+        for (int m = grid.candidates(i); m != 0; m &= m - 1) {
+            int branch = grid.mark();
+            grid.place(i, Integer.numberOfTrailingZeros(m) + 1);
+            Board child = new Board(board.boxOrder());
+            grid.store(child);
+            out[n++] = child;
+            grid.undo(branch);
+        }
+        return n;
+    }
+
+    /**
+     * True if the board has a solution where empty cell i holds a digit other than the given one.
+     * The generator removes a clue and asks this instead of counting to 2: the puzzle stays
+     * unique exactly when no such solution exists. The board is not modified.
+     */
+    boolean hasSolutionWithout(Board board, int i, int digit) {
+        return hasSolutionWithout(board, i, digit, Integer.MAX_VALUE);
+    }
+
+    /**
+     * As above, but a search visiting more than maxNodes nodes gives up and also returns true:
+     * the generator then keeps the clue, which never breaks uniqueness.
+     */
+    boolean hasSolutionWithout(Board board, int i, int digit, int maxNodes) {
+        start(board);
+        grid.eliminate(i, 1 << (digit - 1));
+        nodeLimit = maxNodes;
+        try {
+            return backtrack();
+        } finally {
+            nodeLimit = Integer.MAX_VALUE;
         }
     }
 
-    private int boxIndex(int r, int c) {
-        return (r / 3) * 3 + (c / 3);
+    /**
+     * For the generator's clue swaps: over every solution of board other than reference, AND
+     * together the cells (mapped through orbit to bit indexes) where it differs from reference.
+     * Adding reference's clues on any cell (orbit) left in common then makes the board unique.
+     * Returns false as soon as common is empty, or when board has the solution limit or more
+     * solutions (giving up). The board is not modified.
+     */
+    boolean commonDifference(Board board, Board reference, int[] orbit, long[] common) {
+        start(board);
+        Arrays.fill(common, 0);
+        for (int i = 0; i < grid.cells(); i++) common[orbit[i] >>> 6] |= 1L << orbit[i];
+        if (difference == null || difference.length != common.length) difference = new long[common.length];
+        this.reference = reference;
+        this.orbit = orbit;
+        this.common = common;
+        commonEmpty = false;
+        solutionsFound = 0;
+        try {
+            backtrackCount();
+            return !commonEmpty && !limitReached();
+        } finally {
+            this.reference = null;
+            this.orbit = null;
+            this.common = null;
+            commonEmpty = false;
+        }
     }
 
-    private void mark(int r, int c, int v, boolean on) {
-        rowUsed[r][v] = on;
-        colUsed[c][v] = on;
-        boxUsed[boxIndex(r, c)][v] = on;
+    /** At a solution during commonDifference: narrow common down to where this one differs. */
+    private void intersectDifference() {
+        Arrays.fill(difference, 0);
+        boolean differs = false;
+        for (int i = 0, cells = grid.cells(); i < cells; i++) {
+            if (grid.get(i) == reference.cell(i)) continue;
+            difference[orbit[i] >>> 6] |= 1L << orbit[i];
+            differs = true;
+        }
+        if (!differs) return;
+        long left = 0;
+        for (int w = 0; w < common.length; w++) left |= common[w] &= difference[w];
+        if (left == 0) commonEmpty = true;
     }
 
-    private boolean isSafe(int r, int c, int v) {
-        return !rowUsed[r][v] && !colUsed[c][v] && !boxUsed[boxIndex(r,c)][v];
+    @Override
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
     }
 
-    // used during initialization -- doesn't consult board contents
-    private boolean isValidPlacementNoCheck(Board board, int r, int c, int v) {
-        return !rowUsed[r][v] && !colUsed[c][v] && !boxUsed[boxIndex(r,c)][v];
+    @Override
+    public void setListener(SolveListener listener) {
+        this.listener = listener;
+        grid.setListener(listener);
     }
 
-    private boolean backtrack(Board board) {
-        // find empty cell with fewest candidates
-        int bestR = -1, bestC = -1, bestCount = 10;
-        int[] candidates = null;
-        for (int r = 0; r < 9; r++) {
-            for (int c = 0; c < 9; c++) {
-                if (board.get(r,c) == 0) {
-                    List<Integer> list = new ArrayList<>();
-                    for (int v = 1; v <= 9; v++) if (isSafe(r,c,v)) list.add(v);
-                    if (list.isEmpty()) return false; // dead end
-                    if (list.size() < bestCount) {
-                        bestCount = list.size();
-                        bestR = r;
-                        bestC = c;
-                        candidates = list.stream().mapToInt(Integer::intValue).toArray();
-                        if (bestCount == 1) break;
-                    }
+    /** The propagation rules, in the order they are applied. */
+    public Rule[] getRules() {
+        return rules.clone();
+    }
+
+    /** Cells filled by each rule (same order as {@link #getRules()}) during the last solve/count. */
+    public int[] getRuleFills() {
+        return ruleFills.clone();
+    }
+
+    /** Digits tried on cells that had more than one candidate during the last solve/count. */
+    public int getGuesses() {
+        return guesses;
+    }
+
+    /** Search nodes visited during the last solve/count. */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /** Dead ends (contradictions) hit during the last solve/count. */
+    public int getBacktracks() {
+        return backtracks;
+    }
+
+    /** Deepest branching level reached during the last solve/count. */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private void start(Board board) {
+        if (board.boxOrder() != grid.order()) {
+            grid = new CandidateGrid(board.boxOrder());
+            grid.setListener(listener);
+        }
+        grid.load(board);
+        Arrays.fill(ruleFills, 0);
+        guesses = nodes = backtracks = depth = maxDepth = 0;
+        stopped = false;
+        countLimit = solutionLimit;
+        propagateNanos = 0;
+    }
+
+    private void record(Board board, boolean solved, long t0) {
+        metrics.record("Backtracking", board, solved, System.nanoTime() - t0, propagateNanos,
+                nodes, backtracks, guesses, maxDepth);
+    }
+
+    /** Apply the rules until none of them makes progress. Returns false on a contradiction. */
+    private boolean propagate() {
+        if (metrics == null) return applyRules(grid, rules, ruleFills);
+        long t0 = System.nanoTime();
+        boolean ok = applyRules(grid, rules, ruleFills);
+        propagateNanos += System.nanoTime() - t0;
+        return ok;
+    }
+
+    /**
+     * Apply rules until none makes progress, adding the cells each one filled to ruleFills.
+     * Rules working {@link Rule#byUnit() by unit} run on each unit the grid has queued as changed;
+     * the others run whole-grid passes, in order, once the queue is empty.
+     */
+    static boolean applyRules(CandidateGrid grid, Rule[] rules, int[] ruleFills) {
+        if (grid.hasConflicts()) return false; // no rule needs to find that out
+        while (true) {
+            for (int u; (u = grid.nextChangedUnit()) >= 0; ) {
+                for (int k = 0; k < rules.length; k++) {
+                    if (!rules[k].byUnit()) continue;
+                    int before = grid.filled();
+                    if (rules[k].apply(grid, u) == Rule.CONTRADICTION) return false;
+                    ruleFills[k] += grid.filled() - before;
                 }
             }
-            if (bestCount == 1) break;
+            int k = 0;
+            for (; k < rules.length; k++) {
+                if (rules[k].byUnit()) continue;
+                int before = grid.filled();
+                int changed = rules[k].apply(grid);
+                if (changed == Rule.CONTRADICTION) return false;
+                ruleFills[k] += grid.filled() - before;
+                if (changed > 0) break; // back to the queued units first
+            }
+            if (k == rules.length) return true;
         }
+    }
 
-        if (bestR == -1) return true; // solved
-
-        for (int v : candidates) {
-            board.set(bestR, bestC, v);
-            mark(bestR, bestC, v, true);
-            boolean solved = backtrack(board);
-            if (solved) return true;
-            mark(bestR, bestC, v, false);
-            board.clear(bestR, bestC);
+    /**
+     * Index of the empty cell with fewest candidates (first one in row-major order on ties),
+     * -1 if the board is full, -2 if some empty cell has no candidates left.
+     */
+    static int pickCell(CandidateGrid grid) {
+        int best = -1, bestCount = Integer.MAX_VALUE;
+        for (int i = 0, cells = grid.cells(); i < cells; i++) {
+            if (!grid.isEmpty(i)) continue;
+            int n = Integer.bitCount(grid.candidates(i));
+            if (n == 0) return -2; // dead end
+            if (n < bestCount) {
+                bestCount = n;
+                best = i;
+                if (n == 1) break;
+            }
         }
-        return false;
+        return best;
     }
 
-    private void backtrackCount(Board board) {
-        if (solutionLimit > 0 && solutionsFound >= solutionLimit) return;
-
-        // find empty cell with fewest candidates
-        int bestR = -1, bestC = -1, bestCount = 10;
-        int[] candidates = null;
-        for (int r = 0; r < 9; r++) {
-            for (int c = 0; c < 9; c++) {
-                if (board.get(r,c) == 0) {
-                    List<Integer> list = new ArrayList<>();
-                    for (int v = 1; v <= 9; v++) if (isSafe(r,c,v)) list.add(v);
-                    if (list.isEmpty()) return;
-                    if (list.size() < bestCount) {
-                        bestCount = list.size();
-                        bestR = r;
-                        bestC = c;
-                        candidates = list.stream().mapToInt(Integer::intValue).toArray();
-                        if (bestCount == 1) break;
-                    }
+    private boolean backtrack() {
+        if (++nodes > nodeLimit && checkpoint()) return true; // out of budget or stopped: unwind as if found
+        int mark = grid.mark();
+        if (propagate()) {
+            int i = pickCell(grid);
+            if (i == -1) return true; // solved
+            if (i >= 0) {
+                int m = grid.candidates(i);
+                boolean guess = (m & (m - 1)) != 0;
+                if (++depth > maxDepth) maxDepth = depth;
+                for (; m != 0; m &= m - 1) {
+                    if (guess) guesses++;
+                    int branch = grid.mark();
+                    grid.place(i, Integer.numberOfTrailingZeros(m) + 1, guess);
+                    if (backtrack()) return true;
+                    grid.undo(branch);
                 }
+                depth--;
+            } else {
+                backtracks++;
             }
-            if (bestCount == 1) break;
+        } else {
+            backtracks++;
         }
+        grid.undo(mark);
+        return false;
+    }
 
-        if (bestR == -1) {
-            solutionsFound++;
-            return;
+    /** Past nodeLimit: true if the search must stop, else move nodeLimit to the next poll of the token. */
+    private boolean checkpoint() {
+        if (token == null) return true; // hasSolutionWithout budget spent
+        if (token.shouldStop()) {
+            stopped = true;
+            return true;
         }
+        nodeLimit = nodes + CancellationToken.CHECK_INTERVAL;
+        return false;
+    }
 
-        for (int v : candidates) {
-            board.set(bestR, bestC, v);
-            mark(bestR, bestC, v, true);
-            backtrackCount(board);
-            mark(bestR, bestC, v, false);
-            board.clear(bestR, bestC);
-            if (solutionLimit > 0 && solutionsFound >= solutionLimit) return;
+    private boolean limitReached() {
+        if (commonEmpty || stopped) return true;
+        if (countLimit <= 0) return false;
+        return (sharedFound != null ? sharedFound.get() : solutionsFound) >= countLimit;
+    }
+
+    private void backtrackCount() {
+        if (limitReached()) return;
+        if (++nodes > nodeLimit && checkpoint()) return; // stopped by the token
+        int mark = grid.mark();
+        if (propagate()) {
+            int i = pickCell(grid);
+            if (i == -1) {
+                solutionsFound++;
+                if (reference != null) intersectDifference();
+                if (sharedFound != null) sharedFound.incrementAndGet();
+            } else if (i >= 0) {
+                int m = grid.candidates(i);
+                boolean guess = (m & (m - 1)) != 0;
+                if (++depth > maxDepth) maxDepth = depth;
+                for (; m != 0; m &= m - 1) {
+                    if (guess) guesses++;
+                    int branch = grid.mark();
+                    grid.place(i, Integer.numberOfTrailingZeros(m) + 1, guess);
+                    backtrackCount();
+                    grid.undo(branch);
+                    if (limitReached()) break;
+                }
+                depth--;
+            } else {
+                backtracks++;
+            }
+        } else {
+            backtracks++;
         }
+        grid.undo(mark);
     }
 
     /** Quick validity check for a full or partial board (no heavy search). */
     public static boolean isValidBoard(Board b) {
-        boolean[][] r = new boolean[9][10];
-        boolean[][] c = new boolean[9][10];
-        boolean[][] box = new boolean[9][10];
-        for (int i=0;i<9;i++) for (int d=1;d<=9;d++) { r[i][d]=false; c[i][d]=false; box[i][d]=false; }
-        for (int i=0;i<9;i++) {
-            for (int j=0;j<9;j++) {
+        int n = b.boxOrder(), side = b.size();
+        int[] r = new int[side];
+        int[] c = new int[side];
+        int[] box = new int[side];
+        for (int i=0;i<side;i++) {
+            for (int j=0;j<side;j++) {
                 int val = b.get(i,j);
                 if (val==0) continue;
-                int bi = (i/3)*3 + (j/3);
-                if (r[i][val] || c[j][val] || box[bi][val]) return false;
-                r[i][val] = c[j][val] = box[bi][val] = true;
+                if (val > side) return false;
+                int bit = 1 << (val-1);
+                int bi = (i/n)*n + (j/n);
+                if (((r[i] | c[j] | box[bi]) & bit) != 0) return false;
+                r[i] |= bit; c[j] |= bit; box[bi] |= bit;
             }
         }
         return true;
@@ -0,0 +1,26 @@
+package sudoku;
+
+/**
+ * Common interface of the solving engines, see {@link Engine} for the available ones.
+ * An engine instance keeps its own workspace and is not thread-safe.
+ */
+public interface SolverEngine {
+
+    /** Solve in place. The board is only written to when a solution is found. */
+    boolean solve(Board board);
+
+    /**
+     * Solve in place unless token stops the search first (it is polled every
+     * {@link CancellationToken#CHECK_INTERVAL} nodes). The board is only written to when solved.
+     */
+    SolveResult solve(Board board, CancellationToken token);
+
+    /** Number of solutions, stopping at the engine's solution limit (if > 0). */
+    int countSolutions(Board board);
+
+    /** Record every following solve/count into metrics; null (the default) turns recording off. */
+    void setMetrics(SolverMetrics metrics);
+
+    /** Report every placement and undo of the following searches to listener; null turns it off. */
+    void setListener(SolveListener listener);
+}
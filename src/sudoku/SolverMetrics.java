@@ -0,0 +1,176 @@
+package sudoku;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in solver instrumentation. Attach one instance to any number of engines with
+ * {@link SolverEngine#setMetrics} (also across threads); every solve/count call then adds its
+ * search counters, its time spent in propagation and in branching, and its total latency to
+ * a {@link LatencyHistogram}. Engines without metrics only pay a null check per call.
+ *
+ * Puzzles slower than {@link #setSlowThreshold} are logged individually at WARNING (with their
+ * givens), and the totals can be logged with {@link #log} or published over JMX with {@link #register}.
+ */
+public class SolverMetrics implements SolverMetricsMXBean {
+
+    private static final Logger LOG = Logger.getLogger(SolverMetrics.class.getName());
+
+    private final LongAdder puzzles = new LongAdder();
+    private final LongAdder unsolved = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder backtracks = new LongAdder();
+    private final LongAdder guesses = new LongAdder();
+    private final LongAdder propagateNanos = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private volatile long slowNanos = Long.MAX_VALUE;
+
+    /** Log every puzzle taking longer than nanos (default: never). */
+    public void setSlowThreshold(long nanos) {
+        slowNanos = nanos;
+    }
+
+    /** Called by the engines once per solve/count, before the board is written to. */
+    void record(String engine, Board puzzle, boolean solved, long nanos, long propagationNanos,
+                int nodeCount, int backtrackCount, int guessCount, int depth) {
+        puzzles.increment();
+        if (!solved) unsolved.increment();
+        nodes.add(nodeCount);
+        backtracks.add(backtrackCount);
+        guesses.add(guessCount);
+        propagateNanos.add(propagationNanos);
+        searchNanos.add(nanos - propagationNanos);
+        maxDepth.accumulate(depth);
+        latency.record(nanos);
+        if (nanos > slowNanos) {
+            slow.increment();
+            if (LOG.isLoggable(Level.WARNING)) {
+                LOG.warning(String.format("slow puzzle (%s, %.3f ms): %s nodes=%d backtracks=%d guesses=%d depth=%d",
+                        engine, nanos / 1e6, puzzle.toLine(), nodeCount, backtrackCount, guessCount, depth));
+            }
+        }
+    }
+
+    /** Per-puzzle latency in nanoseconds. */
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override
+    public long getPuzzles() {
+        return puzzles.sum();
+    }
+
+    @Override
+    public long getUnsolved() {
+        return unsolved.sum();
+    }
+
+    /** Search nodes visited (recursive calls), summed over all puzzles. */
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    /** Dead ends: nodes where propagation or the search found a contradiction. */
+    @Override
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    /** Digits tried on cells (or constraints) with more than one option. */
+    @Override
+    public long getGuesses() {
+        return guesses.sum();
+    }
+
+    /** Deepest search stack seen on any puzzle. */
+    @Override
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    @Override
+    public long getPropagationMicros() {
+        return propagateNanos.sum() / 1000;
+    }
+
+    /** Time outside propagation: loading the board, picking cells and branching. */
+    @Override
+    public long getSearchMicros() {
+        return searchNanos.sum() / 1000;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.mean() / 1000;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return latency.valueAtPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getP99Micros() {
+        return latency.valueAtPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getP999Micros() {
+        return latency.valueAtPercentile(99.9) / 1000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return latency.max() / 1000;
+    }
+
+    @Override
+    public long getSlowPuzzles() {
+        return slow.sum();
+    }
+
+    @Override
+    public void reset() {
+        puzzles.reset();
+        unsolved.reset();
+        nodes.reset();
+        backtracks.reset();
+        guesses.reset();
+        propagateNanos.reset();
+        searchNanos.reset();
+        slow.reset();
+        maxDepth.reset();
+        latency.reset();
+    }
+
+    /** Register with the platform MBean server as sudoku:type=SolverMetrics,name=&lt;name&gt;. */
+    public ObjectName register(String name) throws JMException {
+        ObjectName on = new ObjectName("sudoku:type=SolverMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+        return on;
+    }
+
+    /** Write the totals to logger at the given level. */
+    public void log(Logger logger, Level level) {
+        if (logger.isLoggable(level)) logger.log(level, toString());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d puzzles (%d unsolved), %d nodes, %d backtracks, %d guesses, max depth %d, "
+                        + "propagation %.1f ms, search %.1f ms, latency us: mean %.1f p50 %d p99 %d p99.9 %d max %d",
+                getPuzzles(), getUnsolved(), getNodes(), getBacktracks(), getGuesses(), getMaxDepth(),
+                propagateNanos.sum() / 1e6, searchNanos.sum() / 1e6, getMeanMicros(),
+                getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
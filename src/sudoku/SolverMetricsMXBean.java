@@ -0,0 +1,35 @@
+package sudoku;
+
+/** JMX view of {@link SolverMetrics}. Times are in microseconds. */
+public interface SolverMetricsMXBean {
+
+    long getPuzzles();
+
+    long getUnsolved();
+
+    long getNodes();
+
+    long getBacktracks();
+
+    long getGuesses();
+
+    int getMaxDepth();
+
+    long getPropagationMicros();
+
+    long getSearchMicros();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+
+    long getSlowPuzzles();
+
+    void reset();
+}
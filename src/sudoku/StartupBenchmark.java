@@ -0,0 +1,74 @@
+package sudoku;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup cost of short-lived command-line runs: each configuration is run as a fresh process
+ * solving one puzzle with {@link Cli}, timed from process start until its first output line
+ * (the solution), as median and minimum over several runs. A bare JVM ({@code -version}) is
+ * the floor. Given the jar and archive made by cds.sh, the AppCDS runs are timed as well.
+ *
+ * Usage: java -cp bin sudoku.StartupBenchmark [runs] [--jar sudoku.jar --archive sudoku-cli.jsa]
+ */
+public class StartupBenchmark {
+
+    /** JVM flags for short runs: C1 only, no GC threads, no perf data file. */
+    private static final String[] SHORT_RUN = {"-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC", "-XX:-UsePerfData"};
+
+    public static void main(String[] args) throws Exception {
+        int runs = 20;
+        String jar = null, archive = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--jar": jar = args[++i]; break;
+                case "--archive": archive = args[++i]; break;
+                default: runs = Integer.parseInt(args[i]);
+            }
+        }
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String cp = System.getProperty("java.class.path");
+        String puzzle = BoardSamples.sampleHard().toLine();
+
+        time("jvm -version", runs, java, "-version");
+        time("cli", runs, java, "-cp", cp, "sudoku.Cli", puzzle);
+        time("cli, short-run flags", runs, command(java, SHORT_RUN, "-cp", cp, "sudoku.Cli", puzzle));
+        if (jar != null && archive != null) {
+            String share = "-XX:SharedArchiveFile=" + archive;
+            time("cli jar, AppCDS", runs, java, share, "-cp", jar, "sudoku.Cli", puzzle);
+            time("cli jar, AppCDS, short-run flags", runs, command(java, SHORT_RUN, share, "-cp", jar, "sudoku.Cli", puzzle));
+        }
+    }
+
+    private static String[] command(String java, String[] flags, String... rest) {
+        List<String> c = new ArrayList<>();
+        c.add(java);
+        c.addAll(Arrays.asList(flags));
+        c.addAll(Arrays.asList(rest));
+        return c.toArray(new String[0]);
+    }
+
+    private static void time(String name, int runs, String... command) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command).redirectErrorStream(true); // -version writes to stderr
+        long[] nanos = new long[runs];
+        for (int i = -1; i < runs; i++) { // one untimed run first: file cache
+            long t0 = System.nanoTime();
+            Process p = pb.start();
+            String first;
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                first = out.readLine();
+                if (i >= 0) nanos[i] = System.nanoTime() - t0;
+                while (out.readLine() != null) { }
+            }
+            int exit = p.waitFor();
+            if (exit != 0 || first == null) throw new IllegalStateException(name + " failed (exit " + exit + "): " + first);
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-34s median %6.1f ms   min %6.1f ms%n", name, nanos[runs / 2] / 1e6, nanos[0] / 1e6);
+    }
+}
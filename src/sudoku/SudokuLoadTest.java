@@ -0,0 +1,135 @@
+package sudoku;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load test of {@link SudokuServer}'s /solve: every client sends a batch, waits for
+ * the answer, checks it and sends the next. Reports throughput and the latency percentiles of
+ * the requests after the warm-up.
+ *
+ * Without --url a server is started in this JVM on a free port. Puzzles come from --file
+ * (one per line) or are generated (medium, fixed seed).
+ *
+ * Usage: java -cp bin sudoku.SudokuLoadTest [--url http://host:8080] [--clients 32] [--batch 16]
+ *        [--seconds 10] [--warmup 3] [--file puzzles.txt] [--workers N]
+ */
+public class SudokuLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 32, batch = 16, seconds = 10, warmup = 3;
+        int workers = Runtime.getRuntime().availableProcessors();
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url": url = args[++i]; break;
+                case "--clients": clients = Integer.parseInt(args[++i]); break;
+                case "--batch": batch = Integer.parseInt(args[++i]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+                case "--file": file = Path.of(args[++i]); break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        SudokuServer server = null;
+        if (url == null) {
+            server = new SudokuServer(0, workers, 1000, null);
+            server.start();
+            url = "http://localhost:" + server.port();
+        }
+        List<String> puzzles = load(file);
+        byte[][] bodies = bodies(puzzles, batch);
+        System.err.printf("%d clients, batches of %d, %d puzzles, %s%n", clients, batch, puzzles.size(), url);
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI solve = URI.create(url + "/solve");
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder requests = new LongAdder(), errors = new LongAdder();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        int batchSize = batch;
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for (int k = first; ; k++) {
+                    byte[] body = bodies[k % bodies.length];
+                    long t0 = System.nanoTime();
+                    if (t0 >= end) break;
+                    boolean ok;
+                    try {
+                        HttpResponse<String> r = client.send(HttpRequest.newBuilder(solve)
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(),
+                                HttpResponse.BodyHandlers.ofString(StandardCharsets.US_ASCII));
+                        ok = r.statusCode() == 200 && solvedLines(r.body()) == batchSize;
+                    } catch (IOException e) {
+                        ok = false;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long t1 = System.nanoTime();
+                    if (t0 < measureFrom) continue;
+                    latency.record(t1 - t0);
+                    requests.increment();
+                    if (!ok) errors.increment();
+                }
+            }, "load-client-" + t);
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        if (server != null) server.stop(0);
+
+        double secs = seconds;
+        System.out.printf("%d requests, %d errors, %.0f requests/s, %.0f puzzles/s%n",
+                requests.sum(), errors.sum(), requests.sum() / secs, requests.sum() * batch / secs);
+        System.out.printf("latency ms: mean %.2f p50 %.2f p99 %.2f p99.9 %.2f max %.2f%n",
+                latency.mean() / 1e6, latency.valueAtPercentile(50) / 1e6, latency.valueAtPercentile(99) / 1e6,
+                latency.valueAtPercentile(99.9) / 1e6, latency.max() / 1e6);
+    }
+
+    private static List<String> load(Path file) throws IOException {
+        List<String> puzzles = new ArrayList<>();
+        if (file != null) {
+            for (String line : Files.readAllLines(file)) {
+                if (line.length() >= 81 && !line.startsWith("#")) puzzles.add(line.substring(0, 81));
+            }
+            if (puzzles.isEmpty()) throw new IllegalArgumentException("No puzzles in " + file);
+        } else {
+            Generator g = new Generator(1L);
+            for (int i = 0; i < 500; i++) puzzles.add(g.generate(Generator.difficultyToBlanks("medium")).toLine());
+        }
+        return puzzles;
+    }
+
+    /** Request bodies of batch puzzles each, built up front so clients only send. */
+    private static byte[][] bodies(List<String> puzzles, int batch) {
+        int n = Math.max(1, Math.min(256, puzzles.size() / batch));
+        byte[][] bodies = new byte[n][];
+        for (int b = 0; b < n; b++) {
+            StringBuilder sb = new StringBuilder(batch * 82);
+            for (int k = 0; k < batch; k++) sb.append(puzzles.get((b * batch + k) % puzzles.size())).append('\n');
+            bodies[b] = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+        return bodies;
+    }
+
+    private static int solvedLines(String body) {
+        int n = 0;
+        for (String line : body.split("\n")) {
+            if (line.length() == 81 && line.indexOf('.') < 0 && line.indexOf('?') < 0) n++;
+        }
+        return n;
+    }
+}
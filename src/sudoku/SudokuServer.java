@@ -0,0 +1,327 @@
+package sudoku;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Headless HTTP front end on the JDK's built-in server, for 9x9 puzzles in the one-line
+ * 81-character format (see {@link Board#fromString}):
+ *
+ * POST /solve     one puzzle per line (batches welcome); one line back per puzzle: the solution,
+ *                 81 '.' if there is none, 81 '?' if it hit the time limit (?timeout=MS)
+ * POST /count     one puzzle per line; the number of solutions up to ?limit=N (default 2),
+ *                 '?' if it hit the time limit
+ * POST /validate  one puzzle per line; "valid", or "invalid" for conflicting givens
+ * GET  /generate  ?level=easy|medium|hard|expert or ?blanks=N, optional &seed=S; one puzzle line
+ * GET  /stats     solver metrics, when started with --metrics
+ *
+ * GET with ?p=PUZZLE works as a one-line body. Empty lines and lines starting with '#' are
+ * skipped; a shorter line fails the request with 400. ?timeout=MS can only lower the server's
+ * per-puzzle limit (--timeout, 0: none); 0 keeps it.
+ *
+ * Each exchange runs on its own virtual thread when the JDK has them (21+; looked up reflectively,
+ * the code targets 17) and on a fixed pool otherwise. The CPU work happens in one of a fixed set
+ * of workspaces (solvers and board, one per core by default) taken from a blocking queue, so
+ * searches allocate nothing and at most one runs per core however many requests are waiting.
+ *
+ * Usage: java -cp bin sudoku.SudokuServer [--port 8080] [--workers N] [--timeout MS] [--metrics]
+ */
+public class SudokuServer {
+
+    /** Largest accepted request body. */
+    static final int MAX_BODY = 8 << 20;
+    static final int MAX_COUNT_LIMIT = 10_000;
+
+    private static final byte[] NO_SOLUTION = repeat('.');
+    private static final byte[] TIMED_OUT = repeat('?');
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BlockingQueue<Workspace> workspaces;
+    private final long timeoutMillis;
+    private final SolverMetrics metrics;
+
+    /** What one request needs to solve, count or generate without allocating. */
+    private static final class Workspace {
+        final Solver solver = new Solver();
+        final Solver counter = new Solver(); // the limit is given per count
+        final Board board = new Board();
+    }
+
+    /**
+     * A server on port (0: any free port) with the given number of workspaces, a per-puzzle
+     * solve and count time limit (0: none; requests can only lower it), and metrics (null: none).
+     */
+    public SudokuServer(int port, int workers, long timeoutMillis, SolverMetrics metrics) throws IOException {
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1");
+        if (timeoutMillis < 0) throw new IllegalArgumentException("timeoutMillis must be >= 0");
+        this.timeoutMillis = timeoutMillis;
+        this.metrics = metrics;
+        workspaces = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Workspace w = new Workspace();
+            w.solver.setMetrics(metrics);
+            w.counter.setMetrics(metrics);
+            workspaces.add(w);
+        }
+        executor = newExecutor(4 * workers);
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/solve", ex -> handle(ex, this::solve));
+        server.createContext("/count", ex -> handle(ex, this::count));
+        server.createContext("/validate", ex -> handle(ex, this::validate));
+        server.createContext("/generate", ex -> handle(ex, this::generate));
+        server.createContext("/stats", ex -> handle(ex, this::stats));
+    }
+
+    /** One virtual thread per task if the JDK has them, else a fixed pool of the given size. */
+    static ExecutorService newExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stop accepting requests, give running ones up to delaySeconds, then shut the threads down. */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /** The bound port (useful after asking for port 0). */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Handler {
+        /** Writes the response body to out; returns the status code. */
+        int handle(HttpExchange ex, Map<String, String> query, ByteArrayOutputStream out) throws Exception;
+    }
+
+    /** Thrown for bad input: answered with 400 and the message. */
+    private static final class BadRequest extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+
+    private void handle(HttpExchange ex, Handler handler) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        int status;
+        try {
+            status = handler.handle(ex, parseQuery(ex.getRequestURI().getRawQuery()), out);
+        } catch (BadRequest | NumberFormatException e) {
+            out.reset();
+            out.write((e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+            status = 400;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.reset();
+            status = 503;
+        } catch (Exception e) {
+            out.reset();
+            out.write(("error: " + e + "\n").getBytes(StandardCharsets.UTF_8));
+            status = 500;
+        }
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=US-ASCII");
+        ex.sendResponseHeaders(status, out.size() == 0 ? -1 : out.size());
+        try (OutputStream os = ex.getResponseBody()) {
+            out.writeTo(os);
+        }
+    }
+
+    /** The per-puzzle time limit of a request (0: none). */
+    private long timeout(Map<String, String> query) throws BadRequest {
+        if (!query.containsKey("timeout")) return timeoutMillis;
+        long t = Long.parseLong(query.get("timeout"));
+        if (t < 0) throw new BadRequest("timeout must be >= 0");
+        return t == 0 ? timeoutMillis : timeoutMillis == 0 ? t : Math.min(t, timeoutMillis);
+    }
+
+    private static CancellationToken token(long timeout) {
+        return timeout == 0 ? new CancellationToken() : CancellationToken.withTimeout(timeout);
+    }
+
+    private int solve(HttpExchange ex, Map<String, String> query, ByteArrayOutputStream out) throws Exception {
+        long timeout = timeout(query);
+        byte[] body = puzzles(ex, query);
+        int[] offsets = puzzleOffsets(body);
+        Workspace w = workspaces.take();
+        try {
+            for (int off : offsets) {
+                load(body, off, w.board);
+                SolveResult result = w.solver.solve(w.board, token(timeout));
+                if (result.isSolved()) {
+                    for (int i = 0; i < 81; i++) out.write('0' + w.board.cell(i));
+                } else {
+                    out.write(result.isComplete() ? NO_SOLUTION : TIMED_OUT);
+                }
+                out.write('\n');
+            }
+        } finally {
+            workspaces.put(w);
+        }
+        return 200;
+    }
+
+    private int count(HttpExchange ex, Map<String, String> query, ByteArrayOutputStream out) throws Exception {
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : 2;
+        if (limit < 1 || limit > MAX_COUNT_LIMIT) throw new BadRequest("limit must be 1-" + MAX_COUNT_LIMIT);
+        long timeout = timeout(query);
+        byte[] body = puzzles(ex, query);
+        int[] offsets = puzzleOffsets(body);
+        Workspace w = workspaces.take();
+        try {
+            for (int off : offsets) {
+                load(body, off, w.board);
+                int n = Solver.isValidBoard(w.board) ? w.counter.countSolutions(w.board, limit, token(timeout)) : 0;
+                out.write((n < 0 ? "?\n" : n + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+        } finally {
+            workspaces.put(w);
+        }
+        return 200;
+    }
+
+    private int validate(HttpExchange ex, Map<String, String> query, ByteArrayOutputStream out) throws Exception {
+        byte[] body = puzzles(ex, query);
+        int[] offsets = puzzleOffsets(body);
+        Board board = new Board();
+        for (int off : offsets) {
+            load(body, off, board);
+            out.write((Solver.isValidBoard(board) ? "valid\n" : "invalid\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        return 200;
+    }
+
+    private int generate(HttpExchange ex, Map<String, String> query, ByteArrayOutputStream out) throws Exception {
+        long seed = query.containsKey("seed") ? Long.parseLong(query.get("seed")) : ThreadLocalRandom.current().nextLong();
+        String level = query.get("level");
+        if (level != null && !level.matches("(?i)easy|medium|hard|expert")) { // Level.of takes anything else as expert
+            throw new BadRequest("level must be easy, medium, hard or expert");
+        }
+        int blanks = query.containsKey("blanks") ? Integer.parseInt(query.get("blanks")) : Generator.difficultyToBlanks(level);
+        if (blanks < 0 || blanks > 64) throw new BadRequest("blanks must be 0-64");
+        Generator generator = new Generator(seed);
+        Board b;
+        Workspace w = workspaces.take(); // generating is CPU work too: hold a slot
+        try {
+            // as in the GUI: target the rating, fall back to the blank count
+            b = level != null ? generator.generate(DifficultyRater.Level.of(level), 200) : null;
+            if (b == null) b = generator.generate(blanks);
+        } finally {
+            workspaces.put(w);
+        }
+        out.write((b.toLine() + "\n").getBytes(StandardCharsets.US_ASCII));
+        return 200;
+    }
+
+    private int stats(HttpExchange ex, Map<String, String> query, ByteArrayOutputStream out) throws Exception {
+        if (metrics == null) {
+            out.write("metrics are off (start with --metrics)\n".getBytes(StandardCharsets.US_ASCII));
+            return 404;
+        }
+        out.write((metrics + "\n").getBytes(StandardCharsets.US_ASCII));
+        return 200;
+    }
+
+    /** The request body, or the p query parameter if there is one. */
+    private static byte[] puzzles(HttpExchange ex, Map<String, String> query) throws IOException, BadRequest {
+        String p = query.get("p");
+        if (p != null) return p.getBytes(StandardCharsets.ISO_8859_1);
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) throw new BadRequest("body larger than " + MAX_BODY + " bytes");
+            return body;
+        }
+    }
+
+    /** Start of each puzzle line of body, skipping empty and '#' lines; checked before any work starts. */
+    private static int[] puzzleOffsets(byte[] body) throws BadRequest {
+        int[] offsets = new int[16];
+        int n = 0;
+        for (int off = 0, end; off < body.length; off = end + 1) {
+            end = off;
+            while (end < body.length && body[end] != '\n') end++;
+            int len = end > off && body[end - 1] == '\r' ? end - off - 1 : end - off;
+            if (len == 0 || body[off] == '#') continue;
+            if (len < 81) {
+                throw new BadRequest("expected 81 cells, got " + len + ": " + new String(body, off, len, StandardCharsets.ISO_8859_1));
+            }
+            if (n == offsets.length) offsets = Arrays.copyOf(offsets, 2 * n);
+            offsets[n++] = off;
+        }
+        return Arrays.copyOf(offsets, n);
+    }
+
+    /** Same cell rules as {@link Board#fromString}: digits 1-9, anything else empty. */
+    private static void load(byte[] body, int off, Board board) {
+        for (int i = 0; i < 81; i++) {
+            int ch = body[off + i];
+            board.setCell(i, ch >= '1' && ch <= '9' ? ch - '0' : 0);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null) return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static byte[] repeat(char ch) {
+        byte[] line = new byte[81];
+        Arrays.fill(line, (byte) ch);
+        return line;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        int workers = Runtime.getRuntime().availableProcessors();
+        long timeoutMillis = 1000;
+        SolverMetrics metrics = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--timeout": timeoutMillis = Long.parseLong(args[++i]); break;
+                case "--metrics": metrics = new SolverMetrics(); break;
+                default:
+                    System.err.println("Usage: SudokuServer [--port 8080] [--workers N] [--timeout MS] [--metrics]");
+                    System.exit(2);
+            }
+        }
+        if (metrics != null) metrics.register("SudokuServer");
+        SudokuServer server = new SudokuServer(port, workers, timeoutMillis, metrics);
+        server.start();
+        System.err.println("Listening on port " + server.port() + " with " + workers + " workers");
+    }
+}
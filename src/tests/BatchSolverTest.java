@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchSolverTest {
+
+    /** More than two chunks of puzzles, one unsolvable, plus lines the reader skips. */
+    private static List<String> corpus(List<String> solutions) {
+        Generator gen = new Generator(31L);
+        Solver solver = new Solver();
+        List<String> lines = new ArrayList<>();
+        lines.add("# comment");
+        for (int k = 0; k < 9000; k++) {
+            Board b = gen.generate(40);
+            lines.add(b.toLine());
+            if (k == 5000) lines.add("short line");
+            assertTrue(solver.solve(b));
+            solutions.add(b.toLine());
+        }
+        Board bad = Board.fromString(lines.get(1));
+        int i = 0;
+        while (bad.cell(i) != 0) i++;
+        for (int v = 1; v <= 9; v++) {
+            Board t = bad.copy();
+            t.setCell(i, v);
+            if (!solver.solve(t)) {
+                bad.setCell(i, v); // no conflict among the givens, but no solution
+                break;
+            }
+        }
+        lines.add(bad.toLine());
+        solutions.add(".".repeat(81));
+        return lines;
+    }
+
+    @Test
+    public void testOrderedAndUnorderedOutput() throws Exception {
+        List<String> solutions = new ArrayList<>();
+        List<String> lines = corpus(solutions);
+        Path in = Files.createTempFile("batch", ".txt"), out = Files.createTempFile("batch", ".out");
+        try {
+            Files.write(in, lines);
+            BatchSolver.Stats stats = new BatchSolver(3, true, Engine.BACKTRACKING).run(in, out);
+            assertEquals(solutions.size(), stats.puzzles);
+            assertEquals(1, stats.unsolved);
+            assertEquals(solutions, Files.readAllLines(out));
+
+            stats = new BatchSolver(3, false, Engine.DANCING_LINKS).run(in, out);
+            assertEquals(solutions.size(), stats.puzzles);
+            Map<Integer, String> byIndex = new HashMap<>();
+            for (String line : Files.readAllLines(out)) {
+                int space = line.indexOf(' ');
+                assertNull(byIndex.put(Integer.parseInt(line.substring(0, space)), line.substring(space + 1)));
+            }
+            assertEquals(solutions.size(), byIndex.size());
+            for (int k = 0; k < solutions.size(); k++) assertEquals(solutions.get(k), byIndex.get(k), "puzzle " + k);
+        } finally {
+            Files.delete(in);
+            Files.delete(out);
+        }
+    }
+
+    @Test
+    public void testErrorsAreThrownWithoutHanging() throws Exception {
+        Path in = Files.createTempFile("batch", ".txt");
+        Path missing = in.resolveSibling("no-such-dir-" + System.nanoTime());
+        try {
+            List<String> lines = new ArrayList<>();
+            Generator gen = new Generator(32L);
+            for (int k = 0; k < 20000; k++) lines.add(gen.generate(40).toLine());
+            Files.write(in, lines);
+            BatchSolver batch = new BatchSolver(2, true, Engine.BACKTRACKING);
+            assertThrows(IOException.class, () -> batch.run(in, missing.resolve("out.txt")));
+            Path out = Files.createTempFile("batch", ".out");
+            try {
+                assertThrows(IOException.class, () -> batch.run(missing.resolve("in.txt"), out));
+            } finally {
+                Files.delete(out);
+            }
+            // the reader of the failed run is gone: no thread left waiting for chunks
+            for (Thread t : Thread.getAllStackTraces().keySet()) {
+                if (t.getName().startsWith("batch-")) t.join(5000);
+                assertFalse(t.isAlive() && t.getName().startsWith("batch-"), t.getName());
+            }
+        } finally {
+            Files.delete(in);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardModelTest {
+
+    @Test
+    public void testConflictsComeAndGo() {
+        BoardModel m = new BoardModel();
+        m.set(0, 0, 5);
+        m.set(0, 8, 5); // same row
+        assertFalse(m.isValid());
+        assertTrue(m.isConflict(0, 0));
+        assertTrue(m.isConflict(0, 8));
+        m.set(1, 1, 5); // same box as (0,0)
+        m.set(0, 8, 0);
+        assertFalse(m.isValid(), "(0,0) and (1,1) still clash");
+        assertFalse(m.isConflict(0, 8));
+        m.set(1, 1, 6);
+        assertTrue(m.isValid());
+        assertFalse(m.isConflict(0, 0));
+    }
+
+    @Test
+    public void testCandidates() {
+        BoardModel m = new BoardModel();
+        m.set(0, 1, 1);
+        m.set(4, 0, 2);
+        m.set(2, 2, 3);
+        m.set(8, 8, 9); // unrelated to (0,0)
+        assertEquals(0x1FF & ~0b111, m.candidates(0, 0));
+    }
+
+    @Test
+    public void testMatchesIsValidBoard() {
+        BoardModel m = new BoardModel();
+        m.load(BoardSamples.sampleHard());
+        assertEquals(Solver.isValidBoard(BoardSamples.sampleHard()), m.isValid());
+        assertEquals(BoardSamples.sampleHard().toLine(), m.toBoard().toLine());
+        int[] listened = new int[1];
+        m.addListener((r, c) -> listened[0]++);
+        m.clearAll();
+        assertTrue(m.isValid());
+        assertEquals(new Board().toLine(), m.toBoard().toLine());
+        assertTrue(listened[0] > 0);
+    }
+}
@@ -0,0 +1,40 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardSizeTest {
+
+    @Test
+    public void testGenerateAndSolve16x16() {
+        Board puzzle = new Generator(Engine.BACKTRACKING, 1L, 4).generate(150);
+        assertEquals(16, puzzle.size());
+        assertTrue(Solver.isValidBoard(puzzle));
+        assertEquals(1, new Solver(2).countSolutions(puzzle), "generated puzzle should be unique");
+        Board solved = puzzle.copy();
+        assertTrue(new Solver().solve(solved));
+        assertTrue(solved.isFull() && Solver.isValidBoard(solved));
+    }
+
+    @Test
+    public void testLineFormat() {
+        Board b = new Board(4);
+        b.set(0, 0, 16);
+        b.set(0, 1, 9);
+        b.set(15, 15, 10);
+        Board parsed = Board.fromString(b.toLine(), 4);
+        assertEquals(b.toLine(), parsed.toLine());
+        assertEquals(16, parsed.get(0, 0));
+        assertEquals(10, parsed.get(15, 15));
+        assertTrue(b.toLine().startsWith("G9"));
+    }
+
+    @Test
+    public void testValidity4x4() {
+        Board b = new Board(new int[][]{{1, 2, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}});
+        assertTrue(Solver.isValidBoard(b));
+        b.set(1, 1, 1); // same 2x2 box as (0,0)
+        assertFalse(Solver.isValidBoard(b));
+        assertFalse(new Solver().solve(b));
+        assertThrows(IllegalArgumentException.class, () -> new DlxSolver().solve(new Board(4)));
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkGeneratorTest {
+
+    @Test
+    public void testLongHashSetAddContainsGrow() {
+        LongHashSet set = new LongHashSet(4); // grows many times below
+        Set<Long> expected = new HashSet<>();
+        Random rnd = new Random(71);
+        for (int k = 0; k < 200_000; k++) {
+            long v = k % 3 == 0 ? rnd.nextInt(1000) - 500 : rnd.nextLong(); // small values collide often
+            assertEquals(expected.add(v), set.add(v), "add " + v);
+        }
+        assertEquals(expected.size(), set.size());
+        for (long v : expected) assertTrue(set.contains(v), "contains " + v);
+        for (int k = 0; k < 10_000; k++) {
+            long v = rnd.nextLong();
+            assertEquals(expected.contains(v), set.contains(v));
+        }
+        assertEquals(expected.contains(0L), set.contains(0L));
+        LongHashSet zero = new LongHashSet();
+        assertFalse(zero.contains(0));
+        assertTrue(zero.add(0));
+        assertFalse(zero.add(0));
+        assertTrue(zero.contains(0));
+        assertEquals(1, zero.size());
+    }
+
+    @Test
+    public void testNoTwoPuzzlesEquivalent() throws Exception {
+        LongHashSet seen = new LongHashSet();
+        Canonicalizer canon = new Canonicalizer();
+        Set<Long> fingerprints = new HashSet<>();
+        List<Board> first = new ArrayList<>();
+        BulkGenerator.Result r = new BulkGenerator(2, 5L, seen).generate(60, 30, first::add);
+        assertEquals(60, r.puzzles);
+        assertEquals(60, first.size());
+        for (Board b : first) assertTrue(fingerprints.add(canon.fingerprint(b)));
+
+        // the same seed on one thread repeats its first puzzles: all dropped against the shared set
+        List<Board> second = new ArrayList<>();
+        r = new BulkGenerator(1, 5L, seen).generate(40, 30, second::add);
+        assertEquals(40, second.size());
+        assertTrue(r.duplicates > 0);
+        for (Board b : second) assertTrue(fingerprints.add(canon.fingerprint(b)), "repeated " + b.toLine());
+        assertEquals(100, seen.size());
+    }
+}
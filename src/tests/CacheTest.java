@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheTest {
+
+    /** The sample transposed, with digits d -> 10 - d. */
+    private static Board relabeledTranspose(Board b) {
+        Board t = new Board();
+        for (int r = 0; r < 9; r++)
+            for (int c = 0; c < 9; c++) t.set(c, r, b.get(r, c) == 0 ? 0 : 10 - b.get(r, c));
+        return t;
+    }
+
+    @Test
+    public void testEquivalentPuzzleHitsCache() {
+        SolveCache cache = new SolveCache(16);
+        CachingSolver solver = new CachingSolver(new Solver(), cache);
+        Board first = BoardSamples.sampleEasy();
+        assertTrue(solver.solve(first));
+        Board puzzle = relabeledTranspose(BoardSamples.sampleEasy());
+        Board second = puzzle.copy();
+        assertTrue(solver.solve(second));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertTrue(second.isFull() && Solver.isValidBoard(second));
+        for (int i = 0; i < 81; i++) {
+            if (puzzle.cell(i) != 0) assertEquals(puzzle.cell(i), second.cell(i), "given " + i);
+        }
+        assertEquals(relabeledTranspose(first).toLine(), second.toLine());
+    }
+
+    @Test
+    public void testUnsolvableAndEviction() {
+        SolveCache cache = new SolveCache(1, 1);
+        CachingSolver solver = new CachingSolver(new Solver(), cache);
+        Board bad = new Board();
+        bad.set(0, 0, 1);
+        bad.set(0, 1, 1);
+        assertFalse(solver.solve(bad.copy()));
+        assertFalse(solver.solve(bad.copy()));
+        assertEquals(1, cache.hits());
+        assertTrue(solver.solve(BoardSamples.sampleEasy()));
+        assertEquals(1, cache.evictions());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testListenerHearsMissesInCallerCells() {
+        CachingSolver solver = new CachingSolver(new Solver(), new SolveCache(16));
+        int[] cells = new int[81];
+        int[] events = new int[1];
+        solver.setListener(new SolveListener() {
+            @Override
+            public void placed(int cell, int digit, boolean guess) {
+                assertEquals(0, cells[cell], "placed on a filled cell");
+                cells[cell] = digit;
+                events[0]++;
+            }
+
+            @Override
+            public void cleared(int cell) {
+                cells[cell] = 0;
+                events[0]++;
+            }
+        });
+        Board puzzle = relabeledTranspose(BoardSamples.sampleHard());
+        for (int i = 0; i < 81; i++) cells[i] = puzzle.cell(i);
+        Board solution = puzzle.copy();
+        assertTrue(solver.solve(solution));
+        assertTrue(events[0] > 0);
+        for (int i = 0; i < 81; i++) assertEquals(solution.cell(i), cells[i], "cell " + i);
+
+        events[0] = 0;
+        assertTrue(solver.solve(BoardSamples.sampleHard())); // a hit: nothing searched
+        assertEquals(0, events[0]);
+        solver.setListener(null);
+        assertTrue(solver.solve(BoardSamples.sampleMedium()));
+        assertEquals(0, events[0]);
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CancellationTest {
+
+    @Test
+    public void testTokenDoesNotChangeResult() {
+        for (Engine e : Engine.values()) {
+            Board expected = BoardSamples.sampleHard().copy();
+            assertTrue(e.create(0).solve(expected));
+            Board b = BoardSamples.sampleHard().copy();
+            SolveResult result = e.create(0).solve(b, CancellationToken.withTimeout(60_000));
+            assertEquals(SolveResult.Status.SOLVED, result.status, e.toString());
+            assertEquals(expected.toLine(), b.toLine());
+            assertTrue(result.nodes > 0);
+        }
+    }
+
+    @Test
+    public void testStoppedSearchLeavesBoardAlone() {
+        for (Engine e : Engine.values()) {
+            SolverEngine solver = e.create(0);
+            CancellationToken token = new CancellationToken();
+            token.cancel();
+            Board b = BoardSamples.sampleHard().copy();
+            String before = b.toLine();
+            assertEquals(SolveResult.Status.CANCELLED, solver.solve(b, token).status, e.toString());
+            assertEquals(before, b.toLine());
+            assertEquals(SolveResult.Status.TIMED_OUT, solver.solve(b, CancellationToken.withTimeout(0)).status);
+            // the engine is still usable afterwards
+            assertTrue(solver.solve(b));
+            assertTrue(b.isFull() && Solver.isValidBoard(b));
+        }
+    }
+
+    @Test
+    public void testUnsolvable() {
+        Board b = new Board();
+        b.set(0, 0, 1);
+        b.set(0, 1, 1);
+        for (Engine e : Engine.values()) {
+            assertEquals(SolveResult.Status.UNSOLVABLE, e.create(0).solve(b.copy(), new CancellationToken()).status);
+        }
+    }
+}
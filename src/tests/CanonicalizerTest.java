@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CanonicalizerTest {
+
+    /** Order of 0..8 that permutes the three groups and the three members of each. */
+    private static int[] shuffledLines(Random rnd) {
+        int[] groups = {0, 1, 2};
+        shuffle(groups, rnd);
+        int[] lines = new int[9];
+        for (int g = 0; g < 3; g++) {
+            int[] inner = {0, 1, 2};
+            shuffle(inner, rnd);
+            for (int k = 0; k < 3; k++) lines[g * 3 + k] = groups[g] * 3 + inner[k];
+        }
+        return lines;
+    }
+
+    private static void shuffle(int[] a, Random rnd) {
+        for (int i = a.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1), t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    /** b under a random symmetry: rows, columns, transposition and digits. */
+    private static Board disguise(Board b, Random rnd) {
+        int[] rows = shuffledLines(rnd), cols = shuffledLines(rnd);
+        int[] digits = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        for (int d = 9; d > 1; d--) {
+            int e = 1 + rnd.nextInt(d), t = digits[d];
+            digits[d] = digits[e];
+            digits[e] = t;
+        }
+        boolean transpose = rnd.nextBoolean();
+        Board t = new Board();
+        for (int r = 0; r < 9; r++)
+            for (int c = 0; c < 9; c++) {
+                int v = digits[b.get(rows[r], cols[c])];
+                if (transpose) t.set(c, r, v);
+                else t.set(r, c, v);
+            }
+        return t;
+    }
+
+    @Test
+    public void testDisguisedBoardsShareCanonicalForm() {
+        Generator gen = new Generator(7L);
+        Random rnd = new Random(8);
+        Canonicalizer canon = new Canonicalizer();
+        for (int k = 0; k < 30; k++) {
+            Board b = gen.generate(k % 2 == 0 ? 30 : 50);
+            if (k % 5 == 0) assertTrue(new Solver().solve(b));
+            String form = canon.canonical(b).toLine();
+            for (int n = 0; n < 5; n++) {
+                Board other = disguise(b, rnd);
+                assertEquals(form, canon.canonical(other).toLine());
+                assertEquals(canon.fingerprint(b), canon.fingerprint(other));
+            }
+        }
+    }
+
+    @Test
+    public void testTransformMapsToCanonicalAndBack() {
+        Generator gen = new Generator(9L);
+        Canonicalizer canon = new Canonicalizer();
+        Canonicalizer.Transform t = new Canonicalizer.Transform();
+        int[] form = new int[81];
+        for (int k = 0; k < 20; k++) {
+            Board b = gen.generate(k % 2 == 0 ? 25 : 45);
+            canon.canonicalize(b, form, t);
+            Board mapped = new Board(), back = new Board();
+            t.apply(b, mapped);
+            for (int i = 0; i < 81; i++) assertEquals(form[i], mapped.cell(i), "cell " + i);
+            t.invert(mapped, back);
+            assertEquals(b.toLine(), back.toLine());
+        }
+    }
+
+    @Test
+    public void testFormIsNoGreaterThanAnyDisguise() {
+        Board b = new Generator(10L).generate(35);
+        Random rnd = new Random(11);
+        Canonicalizer canon = new Canonicalizer();
+        Canonicalizer.Transform t = new Canonicalizer.Transform();
+        int[] form = new int[81], other = new int[81];
+        canon.canonicalize(b, form);
+        for (int n = 0; n < 200; n++) {
+            // the disguise relabeled by first appearance is one of the forms the minimum was taken over
+            Board d = disguise(b, rnd);
+            int[] labels = new int[10];
+            int next = 1;
+            for (int i = 0; i < 81; i++) {
+                int v = d.cell(i);
+                if (v != 0 && labels[v] == 0) labels[v] = next++;
+                other[i] = labels[v];
+            }
+            assertTrue(java.util.Arrays.compare(form, other) <= 0, "disguise " + n);
+        }
+        canon.canonicalize(b, other, t);
+        assertArrayEquals(form, other);
+    }
+
+    @Test
+    public void testEmptyAndInvalidBoards() {
+        Canonicalizer canon = new Canonicalizer();
+        assertEquals(new Board().toLine(), canon.canonical(new Board()).toLine());
+        Board bad = new Board();
+        bad.set(4, 2, 7);
+        bad.set(4, 6, 7);
+        Board other = new Board();
+        other.set(0, 3, 5);
+        other.set(8, 3, 5);
+        assertEquals(canon.canonical(bad).toLine(), canon.canonical(other).toLine());
+    }
+
+    @Test
+    public void testOtherSizesRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Canonicalizer().canonical(new Board(4)));
+    }
+}
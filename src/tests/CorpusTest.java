@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorpusTest {
+
+    @Test
+    public void testCountsOverTextCorpus() throws Exception {
+        Generator gen = new Generator(21L);
+        List<String> lines = new ArrayList<>();
+        lines.add("# comment");
+        for (int k = 0; k < 5000; k++) lines.add(gen.generate(45).toLine()); // more than one chunk
+        Board bad = new Board();
+        bad.set(0, 0, 3);
+        bad.set(0, 8, 3);
+        lines.add(bad.toLine());
+        lines.add(new Board().toLine()); // valid, many solutions
+        Path in = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(in, lines);
+            CorpusStats one = new CorpusAnalyzer(1, 5).run(in);
+            CorpusStats three = new CorpusAnalyzer(3, 5).run(in);
+            for (CorpusStats s : new CorpusStats[] {one, three}) {
+                assertEquals(5002, s.puzzles());
+                assertEquals(5000, s.unique());
+                assertEquals(1, s.multiple());
+                assertEquals(1, s.invalid());
+                assertEquals(5000, s.withClues(36));
+                assertEquals(1, s.withClues(0));
+                long rated = 0;
+                for (DifficultyRater.Level level : DifficultyRater.Level.values()) rated += s.withLevel(level);
+                assertEquals(5000, rated);
+                assertEquals(5001, s.checkNodes().count());
+                assertEquals(5, s.slowest().size());
+            }
+            // the slowest list ranks by nodes first, so it is the same however the work was split
+            assertEquals(one.slowest().get(0).nodes, three.slowest().get(0).nodes);
+            assertEquals(one.checkNodes().max(), one.slowest().get(0).nodes);
+        } finally {
+            Files.delete(in);
+        }
+    }
+
+    @Test
+    public void testMergeAddsUp() {
+        Generator gen = new Generator(22L);
+        Solver checker = new Solver(2);
+        CorpusStats a = new CorpusStats(2), b = new CorpusStats(2), all = new CorpusStats(2);
+        for (int k = 0; k < 40; k++) {
+            Board p = gen.generate(k % 2 == 0 ? 35 : 55);
+            int n = checker.countSolutions(p);
+            (k < 15 ? a : b).record(p, k, n, k, checker.getNodes(), null);
+            all.record(p, k, n, k, checker.getNodes(), null);
+        }
+        a.merge(b);
+        assertEquals(all.toString(), a.toString());
+        assertEquals(40, a.puzzles());
+        assertEquals(2, a.slowest().size());
+    }
+}
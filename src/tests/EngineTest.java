@@ -0,0 +1,31 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTest {
+
+    @Test
+    public void testEnginesAgreeOnSamples() {
+        Board[] samples = {BoardSamples.sampleEasy(), BoardSamples.sampleMedium(), BoardSamples.sampleHard()};
+        for (Board sample : samples) {
+            int expected = new Solver(10).countSolutions(sample.copy());
+            for (Engine e : Engine.values()) {
+                assertEquals(expected, e.create(10).countSolutions(sample.copy()), e + " solution count");
+                Board b = sample.copy();
+                assertTrue(e.create(0).solve(b), e + " should solve the sample");
+                assertTrue(b.isFull() && Solver.isValidBoard(b), e + " should produce a valid grid");
+            }
+        }
+    }
+
+    @Test
+    public void testEnginesRejectConflictingGivens() {
+        Board b = new Board();
+        b.set(0, 0, 1);
+        b.set(0, 1, 1);
+        for (Engine e : Engine.values()) {
+            assertFalse(e.create(0).solve(b.copy()), e + " should not solve a conflicting board");
+            assertEquals(0, e.create(2).countSolutions(b.copy()));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridValidatorTest {
+
+    private static Board solved(Board puzzle) {
+        Board b = puzzle.copy();
+        assertTrue(new Solver().solve(b));
+        return b;
+    }
+
+    @Test
+    public void testSolvedGridIsValid() {
+        byte[] grids = new byte[GridValidator.GRID_BYTES];
+        GridValidator.pack(solved(BoardSamples.sampleEasy()), grids, 0);
+        byte[] conflicts = new byte[1];
+        long[] valid = new long[1];
+        assertEquals(1, GridValidator.validate(grids, 1, valid, conflicts));
+        assertEquals(1L, valid[0]);
+        assertEquals(-1, conflicts[0]);
+    }
+
+    @Test
+    public void testFirstConflictingUnit() {
+        Board b = solved(BoardSamples.sampleEasy());
+        byte[] grids = new byte[4 * GridValidator.GRID_BYTES];
+        // swapping two cells of one row inside one box keeps the row and box, breaks the columns
+        Board swapped = b.copy();
+        swapped.setCell(3, b.cell(4));
+        swapped.setCell(4, b.cell(3));
+        GridValidator.pack(swapped, grids, 0);
+        Board empty = b.copy();
+        empty.setCell(40, 0);
+        GridValidator.pack(empty, grids, 81);
+        GridValidator.pack(b, grids, 162);
+        grids[162 + 80] = 33; // out of range, 1 << 32 would wrap to digit 1
+        GridValidator.pack(b, grids, 243);
+        byte[] conflicts = new byte[4];
+        long[] valid = new long[1];
+        assertEquals(1, GridValidator.validate(grids, 4, valid, conflicts));
+        assertEquals(0b1000L, valid[0]);
+        assertArrayEquals(new byte[] {12, 4, 8, -1}, conflicts);
+    }
+
+    @Test
+    public void testBulkMatchesIsValidBoard() {
+        Generator gen = new Generator(4L);
+        java.util.Random rnd = new java.util.Random(5);
+        int n = 1000; // not a multiple of any lane count
+        byte[] grids = new byte[n * GridValidator.GRID_BYTES];
+        boolean[] expected = new boolean[n];
+        Board b = null;
+        for (int k = 0; k < n; k++) {
+            if (k % 50 == 0) b = solved(gen.generate(40));
+            Board g = b.copy();
+            if (rnd.nextInt(3) == 0) g.setCell(rnd.nextInt(81), rnd.nextInt(10));
+            expected[k] = g.isFull() && Solver.isValidBoard(g);
+            GridValidator.pack(g, grids, k * GridValidator.GRID_BYTES);
+        }
+        long[] valid = GridValidator.validate(grids, n);
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            assertEquals(expected[k], (valid[k >>> 6] & 1L << k) != 0, "grid " + k);
+            if (expected[k]) count++;
+        }
+        assertTrue(count > n / 2 && count < n);
+    }
+
+    @Test
+    public void testPackRejectsOtherSizes() {
+        assertThrows(IllegalArgumentException.class, () -> GridValidator.pack(new Board(4), new byte[256], 0));
+    }
+}
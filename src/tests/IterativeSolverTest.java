@@ -0,0 +1,47 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IterativeSolverTest {
+
+    @Test
+    public void testSameSearchAsRecursive() {
+        Board[] samples = {BoardSamples.sampleEasy(), BoardSamples.sampleMedium(), BoardSamples.sampleHard()};
+        for (Board sample : samples) {
+            Solver s = new Solver();
+            IterativeSolver it = new IterativeSolver();
+            Board b1 = sample.copy(), b2 = sample.copy();
+            assertTrue(s.solve(b1));
+            assertTrue(it.solve(b2));
+            assertEquals(b1.toLine(), b2.toLine());
+            assertEquals(s.getNodes(), it.getNodes());
+            assertEquals(s.getBacktracks(), it.getBacktracks());
+            assertEquals(s.getGuesses(), it.getGuesses());
+            assertEquals(s.getMaxDepth(), it.getMaxDepth());
+        }
+    }
+
+    @Test
+    public void testResumeInSlices() {
+        Board puzzle = BoardSamples.sampleHard();
+        IterativeSolver whole = new IterativeSolver(2);
+        int expected = whole.countSolutions(puzzle);
+
+        IterativeSolver sliced = new IterativeSolver(2);
+        sliced.begin(puzzle, true);
+        int slices = 1;
+        while (!sliced.resume(1)) slices++;
+        assertEquals(expected, sliced.getSolutionCount());
+        assertEquals(whole.getNodes(), sliced.getNodes());
+        assertEquals(whole.getNodes(), slices, "one node per slice");
+        assertTrue(sliced.resume(1), "finished search stays finished");
+    }
+
+    @Test
+    public void testSolves25x25() {
+        Board puzzle = new Generator(Engine.ITERATIVE, 1L, 5).generate(300);
+        Board b = puzzle.copy();
+        assertTrue(new IterativeSolver().solve(b));
+        assertTrue(b.isFull() && Solver.isValidBoard(b));
+    }
+}
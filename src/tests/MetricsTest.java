@@ -0,0 +1,38 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) h.record(v * 1000);
+        assertEquals(10_000, h.count());
+        assertEquals(10_000_000, h.max());
+        assertEquals(5_000_500, h.mean(), 1);
+        long p50 = h.valueAtPercentile(50), p99 = h.valueAtPercentile(99);
+        assertTrue(Math.abs(p50 - 5_000_000) <= 5_000_000 / 64, "p50 " + p50);
+        assertTrue(Math.abs(p99 - 9_900_000) <= 9_900_000 / 64, "p99 " + p99);
+        assertEquals(h.max(), h.valueAtPercentile(100));
+    }
+
+    @Test
+    public void testEnginesRecord() {
+        for (Engine e : Engine.values()) {
+            SolverMetrics metrics = new SolverMetrics();
+            SolverEngine solver = e.create(2);
+            solver.setMetrics(metrics);
+            solver.solve(BoardSamples.sampleHard());
+            solver.countSolutions(BoardSamples.sampleMedium());
+            assertEquals(2, metrics.getPuzzles(), e.toString());
+            assertEquals(0, metrics.getUnsolved(), e.toString());
+            assertTrue(metrics.getNodes() > 0 && metrics.getMaxDepth() > 0, e.toString());
+            assertEquals(2, metrics.latency().count(), e.toString());
+
+            solver.setMetrics(null);
+            solver.solve(BoardSamples.sampleEasy());
+            assertEquals(2, metrics.getPuzzles(), e + " should not record once detached");
+        }
+    }
+}
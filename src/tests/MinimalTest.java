@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinimalTest {
+
+    private static int clues(Board b) {
+        int n = 0;
+        for (int i = 0; i < 81; i++) if (b.cell(i) != 0) n++;
+        return n;
+    }
+
+    @Test
+    public void testMinimalPuzzleIsUniqueAndIrreducible() {
+        Board b = new Generator(11L).generateMinimal(22, false, 1000);
+        assertNotNull(b);
+        assertTrue(clues(b) <= 22, "clues: " + clues(b));
+        Solver solver = new Solver(2);
+        assertEquals(1, solver.countSolutions(b));
+        for (int i = 0; i < 81; i++) {
+            if (b.cell(i) == 0) continue;
+            Board fewer = b.copy();
+            fewer.setCell(i, 0);
+            assertEquals(2, solver.countSolutions(fewer), "clue " + i + " is redundant");
+        }
+    }
+
+    @Test
+    public void testSymmetricPuzzleKeepsRotationalPairs() {
+        Board b = new Generator(12L).generateMinimal(26, true, 1000);
+        assertNotNull(b);
+        assertTrue(clues(b) <= 26);
+        Solver solver = new Solver(2);
+        assertEquals(1, solver.countSolutions(b));
+        for (int i = 0; i <= 40; i++) {
+            assertEquals(b.cell(i) == 0, b.cell(80 - i) == 0, "cell " + i + " has no mirror clue");
+            if (b.cell(i) == 0) continue;
+            Board fewer = b.copy();
+            fewer.setCell(i, 0);
+            fewer.setCell(80 - i, 0);
+            assertEquals(2, solver.countSolutions(fewer), "pair " + i + " is redundant");
+        }
+    }
+
+    @Test
+    public void testBulkMinimalPuzzles() throws InterruptedException {
+        java.util.List<Board> out = new java.util.ArrayList<>();
+        BulkGenerator.Result r = new BulkGenerator(2, 5L).generateMinimal(3, 24, false, out::add);
+        assertEquals(3, r.puzzles);
+        for (Board b : out) assertTrue(clues(b) <= 24);
+    }
+
+    @Test
+    public void testUnreachableTargetsEnd() throws InterruptedException {
+        assertThrows(IllegalArgumentException.class, () -> new Generator(13L).generateMinimal(16, false, 1));
+        assertThrows(IllegalArgumentException.class, () -> new BulkGenerator(2, 5L).generateMinimal(1, 0, false, b -> { }));
+        // 17 clues are practically out of reach: the attempts run out and the result is partial
+        BulkGenerator.Result r = new BulkGenerator(2, 5L).generateMinimal(2, 17, false, 3, b -> { });
+        assertEquals(0, r.puzzles);
+        assertEquals(3, r.attempts);
+    }
+
+    @Test
+    public void testLargerBoardsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Generator(Engine.BACKTRACKING, 1L, 4).generateMinimal(100, false, 1));
+    }
+}
@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelCounterTest {
+
+    @Test
+    public void testCountsMatchSequential() {
+        Generator gen = new Generator(61L);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int k = 0; k < 12; k++) {
+                Board b = gen.generate(45);
+                for (int removed = 0, i = k; removed < k / 2; i = (i + 7) % 81) { // a few solutions more
+                    if (b.cell(i) == 0) continue;
+                    b.setCell(i, 0);
+                    removed++;
+                }
+                String line = b.toLine();
+                for (int limit : new int[] {0, 1, 2, 5}) {
+                    int expected = new Solver(limit).countSolutions(b);
+                    assertEquals(expected, new ParallelCounter(limit, pool).countSolutions(b), "puzzle " + k + " limit " + limit);
+                }
+                assertEquals(line, b.toLine()); // not modified
+            }
+            Board conflict = new Board();
+            conflict.set(0, 0, 1);
+            conflict.set(8, 0, 1);
+            assertEquals(0, new ParallelCounter(0, pool).countSolutions(conflict));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testLimitClampsManySolutions() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int limit : new int[] {1, 2, 100, 3000}) {
+                assertEquals(limit, new ParallelCounter(limit, pool).countSolutions(new Board()));
+                assertEquals(limit, new ParallelCounter(limit, pool).countSolutions(BoardSamples.sampleMedium()));
+            }
+            assertEquals(2, new ParallelCounter(2).countSolutions(new Board())); // common pool
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
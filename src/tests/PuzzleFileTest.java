@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PuzzleFileTest {
+
+    @Test
+    public void testWriteOpenRoundTrip() throws Exception {
+        Generator gen = new Generator(41L);
+        List<Board> puzzles = new ArrayList<>();
+        Path path = Files.createTempFile("puzzles", ".pzl");
+        try {
+            try (PuzzleFile.Writer w = new PuzzleFile.Writer(path)) {
+                for (int k = 0; k < 5000; k++) { // more than one write buffer
+                    Board b = gen.generate(30 + k % 20);
+                    puzzles.add(b);
+                    assertEquals(k, w.add(b, k % 4));
+                }
+            }
+            try (PuzzleFile f = PuzzleFile.open(path)) {
+                assertEquals(5000, f.size());
+                for (int d = 0; d < 4; d++) assertEquals(1250, f.countWithDifficulty(d));
+                assertEquals(0, f.countWithDifficulty(4));
+                Board into = new Board();
+                for (int k = 0; k < 5000; k++) {
+                    f.get(k, into);
+                    assertEquals(puzzles.get(k).toLine(), into.toLine(), "puzzle " + k);
+                    assertEquals(k % 4, f.difficulty(k));
+                }
+                assertEquals(puzzles.get(7).cell(80), f.cell(7, 80));
+                assertEquals(puzzles.get(7).cell(33), f.cell(7, 33));
+            }
+            try (PuzzleFile f = PuzzleFile.openWritable(path)) {
+                f.set(3, puzzles.get(4));
+                f.setDifficulty(3, 9);
+            }
+            try (PuzzleFile f = PuzzleFile.open(path)) {
+                assertEquals(puzzles.get(4).toLine(), f.get(3).toLine());
+                assertEquals(9, f.difficulty(3));
+                assertEquals(1, f.countWithDifficulty(9));
+                assertEquals(1249, f.countWithDifficulty(3));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testBoundsAndBadFiles() throws Exception {
+        Path path = Files.createTempFile("puzzles", ".pzl");
+        try {
+            try (PuzzleFile.Writer w = new PuzzleFile.Writer(path)) {
+                w.add(BoardSamples.sampleEasy(), 1);
+                assertThrows(IllegalArgumentException.class, () -> w.add(new Board(), 16));
+            }
+            try (PuzzleFile f = PuzzleFile.open(path)) {
+                assertEquals(1, f.size());
+                assertThrows(IndexOutOfBoundsException.class, () -> f.get(1));
+                assertThrows(IndexOutOfBoundsException.class, () -> f.get(-1));
+                assertThrows(IndexOutOfBoundsException.class, () -> f.cell(1, 0));
+                assertThrows(IllegalStateException.class, () -> f.set(0, new Board()));
+                assertThrows(IllegalArgumentException.class, () -> f.countWithDifficulty(16));
+            }
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.truncate(PuzzleFile.HEADER_BYTES + PuzzleFile.RECORD_BYTES - 1);
+            }
+            assertThrows(IOException.class, () -> PuzzleFile.open(path));
+            Files.write(path, new byte[PuzzleFile.HEADER_BYTES]);
+            assertThrows(IOException.class, () -> PuzzleFile.open(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testRecordsAcrossSegments() throws Exception {
+        long segment = 1 << 24; // records per mapped segment
+        long count = segment + 3;
+        Path path = Files.createTempFile("puzzles", ".pzl");
+        try {
+            try (PuzzleFile.Writer w = new PuzzleFile.Writer(path)) {
+                // only the header: the records below are left sparse
+            }
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ch.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, count), 8);
+                ch.write(ByteBuffer.allocate(1), PuzzleFile.HEADER_BYTES + count * PuzzleFile.RECORD_BYTES - 1);
+            }
+            Board[] samples = {BoardSamples.sampleEasy(), BoardSamples.sampleMedium(), BoardSamples.sampleHard()};
+            long[] indexes = {0, segment - 1, segment, count - 1};
+            try (PuzzleFile f = PuzzleFile.openWritable(path)) {
+                assertEquals(count, f.size());
+                for (int k = 0; k < indexes.length; k++) f.set(indexes[k], samples[k % 3]);
+            }
+            try (PuzzleFile f = PuzzleFile.open(path)) {
+                // several readers map the segments concurrently
+                Thread[] readers = new Thread[4];
+                String[] errors = new String[readers.length];
+                for (int t = 0; t < readers.length; t++) {
+                    int id = t;
+                    readers[t] = new Thread(() -> {
+                        Board into = new Board();
+                        for (int k = indexes.length - 1; k >= 0; k--) {
+                            f.get(indexes[(k + id) % indexes.length], into);
+                            if (!into.toLine().equals(samples[(k + id) % indexes.length % 3].toLine())) {
+                                errors[id] = "record " + indexes[(k + id) % indexes.length];
+                            }
+                        }
+                    });
+                    readers[t].start();
+                }
+                for (Thread t : readers) t.join();
+                for (String e : errors) assertNull(e);
+                assertEquals(new Board().toLine(), f.get(segment + 1).toLine());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
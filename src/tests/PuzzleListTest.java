@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PuzzleListTest {
+
+    @Test
+    public void testRoundTripThroughGrowth() throws Exception {
+        Generator gen = new Generator(51L);
+        PuzzleList list = new PuzzleList(1);
+        List<String> lines = new ArrayList<>();
+        for (int k = 0; k < 300; k++) {
+            Board b = gen.generate(k % 60);
+            lines.add(b.toLine());
+            assertEquals(k, k % 2 == 0 ? list.add(b) : list.addLine(b.toLine()));
+        }
+        assertEquals(300, list.size());
+        Board into = new Board();
+        for (int k = 0; k < 300; k++) {
+            list.get(k, into);
+            assertEquals(lines.get(k), into.toLine(), "puzzle " + k);
+            assertEquals(lines.get(k), list.get(k).toLine());
+        }
+        StringWriter out = new StringWriter();
+        list.writeLines(out);
+        PuzzleList copy = new PuzzleList();
+        assertEquals(300, copy.readLines(new BufferedReader(new StringReader("# comment\nshort\n" + out))));
+        for (int k = 0; k < 300; k++) assertEquals(lines.get(k), copy.get(k).toLine());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(300));
+        assertThrows(IllegalArgumentException.class, () -> list.addLine("123"));
+        assertThrows(IllegalArgumentException.class, () -> list.add(new Board(2)));
+    }
+
+    @Test
+    public void testOddCellCountAndHighNibbles() {
+        // 81 cells: the last one is alone in the low nibble of byte 40; 9 sets a nibble's top bit
+        Board b = new Board();
+        for (int i = 0; i < 81; i++) b.setCell(i, i % 10 == 0 ? 0 : 9 - i % 9);
+        b.setCell(79, 9);
+        b.setCell(80, 9);
+        byte[] packed = new byte[PuzzleList.PACKED_BYTES + 2];
+        packed[0] = packed[PuzzleList.PACKED_BYTES + 1] = 0x7F; // neighbors must stay untouched
+        PuzzleList.pack(b, packed, 1);
+        assertEquals(0x7F, packed[0]);
+        assertEquals(0x7F, packed[PuzzleList.PACKED_BYTES + 1]);
+        assertEquals(9, packed[PuzzleList.PACKED_BYTES]);
+        Board back = new Board();
+        PuzzleList.unpack(packed, 1, back);
+        assertEquals(b.toLine(), back.toLine());
+
+        PuzzleList list = new PuzzleList();
+        list.add(new Board());
+        list.add(b);
+        assertEquals(9, list.cell(1, 80));
+        assertEquals(9, list.cell(1, 79));
+        assertEquals(0, list.cell(0, 80));
+        list.set(0, b);
+        assertEquals(b.toLine(), list.get(0).toLine());
+    }
+
+    @Test
+    public void testCopyOnWriteIsolation() throws Exception {
+        Board original = BoardSamples.sampleEasy();
+        String line = original.toLine();
+        Board copy = original.copy();
+        Board copyOfCopy = copy.copy();
+        copy.set(0, 2, 4);
+        assertEquals(line, original.toLine());
+        assertEquals(line, copyOfCopy.toLine());
+        assertEquals(4, copy.get(0, 2));
+        original.clearAll();
+        assertEquals(line, copyOfCopy.toLine());
+        assertEquals(0, original.cell(0));
+
+        // copies taken concurrently are all isolated from later writes to the source
+        Board source = BoardSamples.sampleHard();
+        String hard = source.toLine();
+        Board[] copies = new Board[4];
+        Thread[] threads = new Thread[copies.length];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> copies[id] = source.copy());
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        for (int i = 0; i < 81; i++) source.setCell(i, 0);
+        for (Board c : copies) assertEquals(hard, c.toLine());
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingTest {
+
+    @Test
+    public void testEasySampleNeedsOnlySingles() {
+        DifficultyRater.Rating r = new DifficultyRater().rate(BoardSamples.sampleEasy());
+        assertTrue(r.solved);
+        assertEquals(DifficultyRater.Level.EASY, r.level);
+        assertTrue(r.steps > 0);
+    }
+
+    @Test
+    public void testKnownHardPuzzleNeedsGuessing() {
+        // "Easter Monster"
+        Board b = Board.fromString("100000002090400050006000700050903000000070000000850040700000600030009080002000001");
+        DifficultyRater.Rating r = new DifficultyRater().rate(b);
+        assertFalse(r.solved);
+        assertEquals(DifficultyRater.Level.EXPERT, r.level);
+    }
+
+    @Test
+    public void testGeneratorHitsTargetLevel() {
+        Generator gen = new Generator(3L);
+        DifficultyRater rater = new DifficultyRater();
+        for (DifficultyRater.Level level : DifficultyRater.Level.values()) {
+            Board b = gen.generate(level, 200);
+            assertNotNull(b, level.toString());
+            assertEquals(level, rater.rate(b).level);
+            assertEquals(1, new Solver(2).countSolutions(b), level + " puzzle should be unique");
+        }
+    }
+}
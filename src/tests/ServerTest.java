@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerTest {
+
+    private SudokuServer server;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeEach
+    public void start() throws Exception {
+        server = new SudokuServer(0, 2, 1000, null);
+        server.start();
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        URI uri = URI.create("http://localhost:" + server.port() + path);
+        return client.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testSolveBatch() throws Exception {
+        Board easy = BoardSamples.sampleEasy(), hard = BoardSamples.sampleHard();
+        Board conflict = new Board();
+        conflict.set(0, 0, 5);
+        conflict.set(0, 8, 5);
+        HttpResponse<String> r = post("/solve", easy.toLine() + "\n\n# comment\n" + hard.toLine() + "\r\n" + conflict.toLine());
+        assertEquals(200, r.statusCode());
+        String[] lines = r.body().split("\n");
+        assertEquals(3, lines.length);
+        Board expected = hard.copy();
+        new Solver().solve(expected);
+        assertEquals(expected.toLine(), lines[1]);
+        assertEquals(".".repeat(81), lines[2]);
+    }
+
+    @Test
+    public void testCountValidateGenerate() throws Exception {
+        assertEquals("1\n", post("/count", BoardSamples.sampleEasy().toLine()).body());
+        assertEquals("2\n", post("/count", BoardSamples.sampleMedium().toLine()).body());
+        assertEquals("3\n", post("/count?limit=3", new Board().toLine()).body());
+        assertEquals("valid\n", post("/validate", BoardSamples.sampleMedium().toLine()).body());
+        HttpResponse<String> r = post("/generate?blanks=40&seed=7", "");
+        assertEquals(200, r.statusCode());
+        Board b = Board.fromString(r.body().trim());
+        assertEquals(1, new Solver(2).countSolutions(b));
+    }
+
+    @Test
+    public void testBadInput() throws Exception {
+        assertEquals(400, post("/solve", "123").statusCode());
+        assertEquals(400, post("/count?limit=0", new Board().toLine()).statusCode());
+        assertEquals(400, post("/generate?level=foo", "").statusCode());
+        assertEquals(200, post("/generate?level=Hard&seed=3", "").statusCode());
+    }
+
+    @Test
+    public void testCountAndSolveTimeouts() throws Exception {
+        long t0 = System.nanoTime();
+        assertEquals("?\n", post("/count?limit=10000&timeout=1", new Board().toLine()).body());
+        assertTrue(System.nanoTime() - t0 < 900_000_000L, "the count was stopped at the timeout");
+        assertEquals(400, post("/count?timeout=-5", new Board().toLine()).statusCode());
+        assertEquals(400, post("/solve?timeout=-5", new Board().toLine()).statusCode());
+        assertEquals(81, post("/solve?timeout=0", BoardSamples.sampleHard().toLine()).body().trim().length());
+        assertThrows(IllegalArgumentException.class, () -> new SudokuServer(0, 1, -1, null));
+
+        Solver counter = new Solver();
+        assertEquals(-1, counter.countSolutions(new Board(), 0, CancellationToken.withTimeout(0)));
+        assertEquals(2, counter.countSolutions(BoardSamples.sampleMedium(), 2, new CancellationToken()));
+        assertEquals(1, counter.countSolutions(BoardSamples.sampleEasy(), 0, new CancellationToken()));
+    }
+}
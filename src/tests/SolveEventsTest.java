@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.Test;
+import sudoku.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolveEventsTest {
+
+    @Test
+    public void testReplayEndsOnSolution() throws Exception {
+        for (Engine e : Engine.values()) {
+            Board puzzle = BoardSamples.sampleHard();
+            SolveEventBuffer events = new SolveEventBuffer(64); // small: the solver has to wait for the consumer
+            SolverEngine solver = e.create(0);
+            solver.setListener(events);
+            Board solution = puzzle.copy();
+            Thread t = new Thread(() -> solver.solve(solution));
+            t.start();
+
+            int[] cells = new int[81];
+            for (int i = 0; i < 81; i++) cells[i] = puzzle.cell(i);
+            int[] batch = new int[16];
+            int guesses = 0;
+            while (t.isAlive() || !events.isEmpty()) {
+                int n = events.drain(batch, batch.length);
+                for (int k = 0; k < n; k++) {
+                    int i = SolveEventBuffer.cell(batch[k]);
+                    int type = SolveEventBuffer.type(batch[k]);
+                    if (type == SolveEventBuffer.CLEAR) {
+                        assertNotEquals(0, cells[i], "cleared an empty cell");
+                        cells[i] = 0;
+                    } else {
+                        assertEquals(0, cells[i], "placed on a filled cell");
+                        cells[i] = SolveEventBuffer.digit(batch[k]);
+                        if (type == SolveEventBuffer.GUESS) guesses++;
+                    }
+                }
+            }
+            t.join();
+            for (int i = 0; i < 81; i++) assertEquals(solution.cell(i), cells[i], e + " cell " + i);
+            assertTrue(guesses > 0, "the hard sample needs guessing");
+        }
+    }
+
+    @Test
+    public void testClosedBufferDoesNotBlock() {
+        SolveEventBuffer events = new SolveEventBuffer(4);
+        events.close();
+        Solver solver = new Solver();
+        solver.setListener(events);
+        Board b = BoardSamples.sampleHard().copy();
+        assertTrue(solver.solve(b));
+    }
+}
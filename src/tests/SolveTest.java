@@ -1,14 +1,22 @@
 import org.junit.jupiter.api.Test;
+import sudoku.Board;
+import sudoku.BoardSamples;
+import sudoku.Generator;
+import sudoku.Rule;
+import sudoku.Rules;
+import sudoku.Solver;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SolveTest {
 
     @Test
     public void testEasyPuzzle() {
-        int[][] board = SudokuFileLoader.load("samples/easy.txt");
-        SudokuSolver solver = new SudokuSolver(board);
-        assertTrue(solver.solve(), "Easy puzzle should be solvable");
-        assertTrue(solver.isSolved(), "Board should be fully solved");
+        Board board = BoardSamples.sampleEasy();
+        Solver solver = new Solver();
+        assertTrue(solver.solve(board), "Easy puzzle should be solvable");
+        assertTrue(board.isFull(), "Board should be fully solved");
+        assertTrue(Solver.isValidBoard(board));
     }
 
     @Test
@@ -24,17 +32,46 @@ public class SolveTest {
             {0,0,0,0,0,0,0,0,0},
             {0,0,0,0,0,0,0,0,0}
         };
-        SudokuSolver solver = new SudokuSolver(invalidBoard);
-        assertFalse(solver.solve(), "Invalid puzzle should not be solvable");
+        Solver solver = new Solver();
+        assertFalse(solver.solve(new Board(invalidBoard)), "Invalid puzzle should not be solvable");
     }
 
     @Test
     public void testAlreadySolved() {
-        int[][] board = SudokuFileLoader.load("samples/easy.txt");
-        SudokuSolver solver = new SudokuSolver(board);
-        solver.solve();
-        assertTrue(solver.isSolved());
+        Board board = BoardSamples.sampleEasy();
+        Solver solver = new Solver();
+        solver.solve(board);
+        assertTrue(board.isFull());
         // Solve again, should remain solved
-        assertTrue(solver.solve());
+        String solved = board.toLine();
+        assertTrue(solver.solve(board));
+        assertEquals(solved, board.toLine());
+    }
+
+    @Test
+    public void testRuleSetsCountAlike() {
+        Rule[][] sets = {
+            {},
+            Rules.standard(),
+            {Rules.HIDDEN_SINGLES},
+            {Rules.NAKED_SINGLES, Rules.HIDDEN_SINGLES, Rules.LOCKED_CANDIDATES},
+            {Rules.NAKED_SINGLES, Rules.NAKED_PAIRS, Rules.X_WING, Rules.XY_WING}
+        };
+        Generator gen = new Generator(71L);
+        for (int k = 0; k < 20; k++) {
+            Board b = gen.generate(30);
+            for (int removed = 0, i = k; removed < k / 4; i = (i + 11) % 81) { // up to a few dozen solutions
+                if (b.cell(i) == 0) continue;
+                b.setCell(i, 0);
+                removed++;
+            }
+            int expected = new Solver().countSolutions(b);
+            for (Rule[] rules : sets) assertEquals(expected, new Solver(0, rules).countSolutions(b), "puzzle " + k);
+        }
+        // conflicting givens on an otherwise empty board: no search through its completions
+        Board conflict = new Board();
+        conflict.set(0, 0, 1);
+        conflict.set(8, 0, 1);
+        for (Rule[] rules : sets) assertEquals(0, new Solver(0, rules).countSolutions(conflict));
     }
 }
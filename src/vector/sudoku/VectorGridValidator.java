@@ -0,0 +1,76 @@
+package sudoku;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link GridValidator}'s vector kernel: one short lane per grid. A block of grids is first
+ * transposed into cell-major order, each digit already turned into its cell bit, so a cell of
+ * the whole block is one vector load; the 27 unit masks are then built with lane-wise ORs in
+ * exactly the way the scalar loop builds them for one grid.
+ *
+ * Uses the incubating Vector API, so it lives apart from the other sources (src/vector) and
+ * needs {@code --add-modules jdk.incubator.vector} to compile and to be picked up at run time.
+ */
+final class VectorGridValidator implements GridValidator.Kernel {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final int LANES = SHORTS.length();
+    private static final int CELLS = GridValidator.GRID_BYTES;
+
+    // per thread: the transposed block, cell bits of cell i at [i * LANES, (i + 1) * LANES)
+    private static final ThreadLocal<short[]> SCRATCH = ThreadLocal.withInitial(() -> new short[CELLS * LANES]);
+
+    VectorGridValidator() {
+        // fewer than 8 lanes do not win over the scalar loop; a block must fit in one bitmap word
+        if (LANES < 8 || 64 % LANES != 0) throw new UnsupportedOperationException(LANES + " lanes");
+    }
+
+    @Override
+    public void validate(byte[] grids, int first, int count, long[] valid) {
+        short[] t = SCRATCH.get();
+        int k = first, end = first + count;
+        for (; k + LANES <= end; k += LANES) {
+            transpose(grids, k, t);
+            valid[k >>> 6] |= validBlock(t) << k;
+        }
+        for (; k < end; k++) {
+            if (GridValidator.isValid(grids, k * CELLS)) valid[k >>> 6] |= 1L << k;
+        }
+    }
+
+    private static void transpose(byte[] grids, int first, short[] t) {
+        for (int lane = 0; lane < LANES; lane++) {
+            int from = (first + lane) * CELLS;
+            for (int i = 0, to = lane; i < CELLS; i++, to += LANES) t[to] = (short) GridValidator.BIT[grids[from + i] & 0xFF];
+        }
+    }
+
+    /** Lane mask of the valid grids in the transposed block. */
+    private static long validBlock(short[] t) {
+        ShortVector zero = ShortVector.zero(SHORTS);
+        ShortVector ok = ShortVector.broadcast(SHORTS, (short) GridValidator.ALL);
+        ShortVector c0 = zero, c1 = zero, c2 = zero, c3 = zero, c4 = zero, c5 = zero, c6 = zero, c7 = zero, c8 = zero;
+        for (int band = 0; band < 3; band++) {
+            ShortVector x0 = zero, x1 = zero, x2 = zero;
+            for (int r = 0, i = band * 27 * LANES; r < 3; r++, i += 9 * LANES) {
+                ShortVector b0 = load(t, i), b1 = load(t, i + LANES), b2 = load(t, i + 2 * LANES);
+                ShortVector b3 = load(t, i + 3 * LANES), b4 = load(t, i + 4 * LANES), b5 = load(t, i + 5 * LANES);
+                ShortVector b6 = load(t, i + 6 * LANES), b7 = load(t, i + 7 * LANES), b8 = load(t, i + 8 * LANES);
+                ShortVector y0 = b0.or(b1).or(b2), y1 = b3.or(b4).or(b5), y2 = b6.or(b7).or(b8);
+                ok = ok.and(y0.or(y1).or(y2));
+                x0 = x0.or(y0); x1 = x1.or(y1); x2 = x2.or(y2);
+                c0 = c0.or(b0); c1 = c1.or(b1); c2 = c2.or(b2); c3 = c3.or(b3); c4 = c4.or(b4);
+                c5 = c5.or(b5); c6 = c6.or(b6); c7 = c7.or(b7); c8 = c8.or(b8);
+            }
+            ok = ok.and(x0.and(x1).and(x2));
+        }
+        ok = ok.and(c0.and(c1).and(c2).and(c3).and(c4).and(c5).and(c6).and(c7).and(c8));
+        return ok.compare(VectorOperators.EQ, (short) GridValidator.ALL).toLong();
+    }
+
+    private static ShortVector load(short[] t, int offset) {
+        return ShortVector.fromArray(SHORTS, t, offset);
+    }
+}